@@ -2,26 +2,50 @@
 
 import com.sistema.cadastro.dto.CepDataDTO;
 import com.sistema.cadastro.exception.BusinessException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 @RequiredArgsConstructor
-public class CepClient {
+public class CepClient implements MeterBinder {
+
+    public static final String SERVICE_UNAVAILABLE = "CEP_SERVICE_UNAVAILABLE";
+    public static final String CEP_NOT_FOUND = "CEP_NOT_FOUND";
+    static final String RESILIENCE_INSTANCE = "viacep";
+    static final String HEDGE_BULKHEAD = "viacep-hedge";
+    private static final double HEDGE_PERCENTILE = 0.95;
 
     private final WebClient webClient;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
     private static final Logger log = LoggerFactory.getLogger(CepClient.class);
 
     @Value("${app.cep.api.url:https://viacep.com.br/ws}")
@@ -36,11 +60,71 @@ public class CepClient {
     @Value("${app.cep.api.retry.backoff-delay:1000}")
     private long backoffDelay;
 
-@Cacheable(value = "cepData", key = "#cep", unless = "#result == null")
-    public CepDataDTO getCepData(String cep) {
+    @Value("${app.cep.api.attempt-timeout:2000}")
+    private long attemptTimeout;
+
+    @Value("${app.cep.api.secondary-url:}")
+    private String secondaryUrl;
+
+    @Value("${app.cep.api.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${app.cep.api.hedge.default-delay:300ms}")
+    private Duration hedgeDefaultDelay;
+
+    @Value("${app.cep.api.hedge.min-samples:50}")
+    private long hedgeMinSamples;
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private Bulkhead hedgeBulkhead;
+    private WebClient secondaryWebClient;
+    private volatile Timer latency;
+
+    private final LongAdder hedgesFired = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgesRejected = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker(RESILIENCE_INSTANCE);
+        bulkhead = bulkheadRegistry.bulkhead(RESILIENCE_INSTANCE);
+
+        if (hedgeEnabled && secondaryUrl != null && !secondaryUrl.isBlank()) {
+            secondaryWebClient = webClient.mutate().baseUrl(secondaryUrl).build();
+            hedgeBulkhead = bulkheadRegistry.bulkhead(HEDGE_BULKHEAD);
+            log.info("Hedge de consultas de CEP habilitado para o provedor secundÃ¡rio {}", secondaryUrl);
+        }
+    }
+
+    public Mono<CepDataDTO> getCepDataAsync(String cep) {
         log.info("Consultando CEP: {}", cep);
-        
-        return webClient
+
+        Mono<CepDataDTO> primary = Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return request(webClient, cep)
+                            .doOnSuccess(response -> recordLatency(System.nanoTime() - start));
+                })
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofMillis(backoffDelay))
+                        .filter(this::isRetryableException)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure())
+                        .doAfterRetry(signal -> log.warn("Tentativa {} falhou para CEP: {}", signal.totalRetries() + 1, cep)))
+                .onErrorMap(this::isRejected, error -> {
+                    log.warn("Chamada ao ViaCEP rejeitada para CEP {}: {}", cep, error.getMessage());
+                    return new BusinessException("ServiÃ§o de consulta de CEP temporariamente indisponÃ­vel",
+                            HttpStatus.SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE, error);
+                });
+
+        return (secondaryWebClient != null ? hedge(primary, cep) : primary)
+                .timeout(Duration.ofMillis(timeout))
+                .doOnSuccess(response -> log.info("CEP {} consultado com sucesso", cep))
+                .doOnError(error -> log.error("Erro ao consultar CEP {}: {}", cep, error.getMessage()));
+    }
+
+    private Mono<CepDataDTO> request(WebClient client, String cep) {
+        return client
                 .get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/{cep}/json/")
@@ -48,25 +132,115 @@ public class CepClient {
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, response -> {
                     log.error("Erro 4xx ao consultar CEP: {}", cep);
-                    return Mono.error(new BusinessException("CEP invÃ¡lido ou nÃ£o encontrado"));
+                    return Mono.error(new BusinessException("CEP invÃ¡lido ou nÃ£o encontrado",
+                            HttpStatus.BAD_REQUEST, CEP_NOT_FOUND));
                 })
                 .onStatus(HttpStatusCode::is5xxServerError, response -> {
                     log.error("Erro 5xx ao consultar CEP: {}", cep);
-                    return Mono.error(new BusinessException("Erro no serviÃ§o de consulta de CEP"));
+                    return Mono.error(new BusinessException("Erro no serviÃ§o de consulta de CEP",
+                            HttpStatus.SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE));
                 })
                 .bodyToMono(CepDataDTO.class)
-                .retryWhen(reactor.util.retry.Retry.backoff(maxRetryAttempts, Duration.ofMillis(backoffDelay))
-                        .filter(this::isRetryableException)
-                        .doAfterRetry(signal -> log.warn("Tentativa {} falhou para CEP: {}", signal.totalRetries() + 1, cep)))
-                .timeout(Duration.ofMillis(timeout))
-                .doOnSuccess(response -> log.info("CEP {} consultado com sucesso", cep))
-                .doOnError(error -> log.error("Erro ao consultar CEP {}: {}", cep, error.getMessage()))
-                .block();
+                .timeout(Duration.ofMillis(attemptTimeout));
+    }
+
+    // Se o ViaCEP nÃ£o responder atÃ© o p95 observado, dispara a mesma consulta no provedor secundÃ¡rio
+    // e fica com a primeira resposta; falha do secundÃ¡rio nÃ£o interfere na chamada principal.
+    // O bulkhead prÃ³prio limita os hedges: com o ViaCEP lento quase toda consulta passaria do p95
+    private Mono<CepDataDTO> hedge(Mono<CepDataDTO> primary, String cep) {
+        Duration delay = hedgeDelay();
+        Mono<CepDataDTO> secondary = Mono.delay(delay)
+                .then(Mono.defer(() -> {
+                            hedgesFired.increment();
+                            log.debug("ViaCEP sem resposta em {} ms para CEP {}; consultando provedor secundÃ¡rio",
+                                    delay.toMillis(), cep);
+                            return request(secondaryWebClient, cep);
+                        })
+                        .transformDeferred(BulkheadOperator.of(hedgeBulkhead)))
+                .doOnNext(response -> {
+                    hedgeWins.increment();
+                    log.info("CEP {} respondido pelo provedor secundÃ¡rio", cep);
+                })
+                .onErrorResume(error -> {
+                    if (error instanceof BulkheadFullException) {
+                        hedgesRejected.increment();
+                        log.debug("Limite de hedges simultÃ¢neos atingido; CEP {} aguarda sÃ³ o ViaCEP", cep);
+                    } else {
+                        log.warn("Provedor secundÃ¡rio falhou para CEP {}: {}", cep, error.getMessage());
+                    }
+                    return Mono.never();
+                });
+
+        return Mono.firstWithSignal(primary, secondary);
     }
 
+    Duration hedgeDelay() {
+        Timer timer = latency;
+        if (timer == null || timer.count() < hedgeMinSamples) {
+            return hedgeDefaultDelay;
+        }
+
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == HEDGE_PERCENTILE && percentile.value() > 0) {
+                return Duration.ofNanos((long) percentile.value(TimeUnit.NANOSECONDS));
+            }
+        }
+        return hedgeDefaultDelay;
+    }
+
+    private void recordLatency(long nanos) {
+        Timer timer = latency;
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // TimeoutException vem do limite por tentativa (attempt-timeout): tentativa lenta tambÃ©m Ã© repetida
     private boolean isRetryableException(Throwable throwable) {
-        return throwable instanceof WebClientResponseException &&
-               ((WebClientResponseException) throwable).getStatusCode().is5xxServerError();
+        return throwable instanceof WebClientRequestException
+                || throwable instanceof TimeoutException
+                || (throwable instanceof BusinessException businessException
+                    && SERVICE_UNAVAILABLE.equals(businessException.getErrorCode()));
+    }
+
+    private boolean isRejected(Throwable throwable) {
+        return throwable instanceof CallNotPermittedException || throwable instanceof BulkheadFullException;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        latency = Timer.builder("cep.client.latency")
+                .description("LatÃªncia das respostas do ViaCEP")
+                .publishPercentiles(0.5, HEDGE_PERCENTILE, 0.99)
+                .register(registry);
+        FunctionCounter.builder("cep.client.hedge", hedgesFired, LongAdder::sum)
+                .tag("result", "fired")
+                .description("Consultas de CEP repetidas no provedor secundÃ¡rio")
+                .register(registry);
+        FunctionCounter.builder("cep.client.hedge", hedgeWins, LongAdder::sum)
+                .tag("result", "won")
+                .description("Consultas de CEP em que o provedor secundÃ¡rio respondeu primeiro")
+                .register(registry);
+        FunctionCounter.builder("cep.client.hedge", hedgesRejected, LongAdder::sum)
+                .tag("result", "rejected")
+                .description("Hedges nÃ£o disparados por atingir o limite de consultas simultÃ¢neas ao secundÃ¡rio")
+                .register(registry);
+    }
+
+    long getHedgesFired() {
+        return hedgesFired.sum();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    long getHedgesRejected() {
+        return hedgesRejected.sum();
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
     }
 
     public CepDataDTO fallbackCepData(String cep, Exception ex) {
@@ -0,0 +1,15 @@
+﻿package com.sistema.cadastro.client;
+
+import com.sistema.cadastro.exception.BusinessException;
+
+import java.util.function.Predicate;
+
+// CEP inexistente (4xx) Ã© resposta vÃ¡lida do ViaCEP e nÃ£o deve abrir o circuit breaker
+public class CepUpstreamFailurePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        return !(throwable instanceof BusinessException businessException)
+                || CepClient.SERVICE_UNAVAILABLE.equals(businessException.getErrorCode());
+    }
+}
@@ -0,0 +1,47 @@
+﻿package com.sistema.cadastro.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Sem CallerRunsPolicy: quem completa a consulta do CEP pode ser uma thread do Reactor, que nÃ£o deve executar o
+    // INSERT; fila cheia recusa o cadastro (UserService responde 503)
+    @Bean(name = "registrationExecutor")
+    public ThreadPoolTaskExecutor registrationExecutor(
+            @Value("${app.async.registration.core-pool-size:8}") int corePoolSize,
+            @Value("${app.async.registration.max-pool-size:32}") int maxPoolSize,
+            @Value("${app.async.registration.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("registration-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Sem CallerRunsPolicy: se a fila encher, a tarefa fica no outbox e o agendador a retoma depois
+    @Bean(name = "enrichmentExecutor")
+    public ThreadPoolTaskExecutor enrichmentExecutor(
+            @Value("${app.async.enrichment.core-pool-size:4}") int corePoolSize,
+            @Value("${app.async.enrichment.max-pool-size:8}") int maxPoolSize,
+            @Value("${app.async.enrichment.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("address-enrichment-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
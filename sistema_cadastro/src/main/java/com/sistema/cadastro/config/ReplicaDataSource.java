@@ -0,0 +1,180 @@
+﻿package com.sistema.cadastro.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Destino das conexÃµes somente leitura (LazyConnectionDataSourceProxy.setReadOnlyDataSource): alterna entre as
+// rÃ©plicas saudÃ¡veis e recorre ao primÃ¡rio quando nenhuma estÃ¡ disponÃ­vel ou a requisiÃ§Ã£o precisa ler o que gravou
+public class ReplicaDataSource extends AbstractDataSource implements HealthIndicator, MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    // Sem WAL pendente de aplicaÃ§Ã£o o atraso Ã© zero, mesmo que a Ãºltima transaÃ§Ã£o replicada seja antiga;
+    // fora de recuperaÃ§Ã£o (servidor que nÃ£o Ã© standby) as funÃ§Ãµes retornam NULL e o atraso tambÃ©m conta como zero
+    private static final String LAG_SQL = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    public ReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    }
+
+    // Leituras desta thread vÃ£o ao primÃ¡rio atÃ© clearPrimaryOnly (read-your-writes)
+    public static void usePrimaryOnly() {
+        PRIMARY_ONLY.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryOnly() {
+        PRIMARY_ONLY.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!Boolean.TRUE.equals(PRIMARY_ONLY.get()) && !replicas.isEmpty()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown("falha ao obter conexÃ£o: " + e.getMessage());
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Credenciais explÃ­citas valem para o primÃ¡rio; os pools das rÃ©plicas tÃªm as prÃ³prias
+        primaryReads.increment();
+        return primary.getConnection(username, password);
+    }
+
+    // A rÃ©plica sÃ³ volta a receber leituras depois de responder com atraso dentro de max-lag
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                resultSet.next();
+                replica.lagMillis = Math.round(resultSet.getDouble(1) * 1000);
+                if (replica.lagMillis > maxLag.toMillis()) {
+                    replica.markDown("atraso de replicaÃ§Ã£o de " + replica.lagMillis + " ms");
+                } else {
+                    replica.markUp();
+                }
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    // Sempre UP: sem rÃ©plicas saudÃ¡veis as leituras continuam no primÃ¡rio; o detalhe mostra cada rÃ©plica
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            details.put(replica.name, Map.of("status", replica.healthy ? "UP" : "DOWN", "lagMs", replica.lagMillis));
+        }
+        return Health.up().withDetails(details).build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .description("1 enquanto a rÃ©plica recebe leituras")
+                    .register(registry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis / 1000.0)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .description("Atraso de replicaÃ§Ã£o medido na Ãºltima verificaÃ§Ã£o")
+                    .register(registry);
+        }
+        FunctionCounter.builder("datasource.reads", replicaReads, LongAdder::sum)
+                .tag("target", "replica")
+                .description("ConexÃµes somente leitura atendidas por rÃ©plicas")
+                .register(registry);
+        FunctionCounter.builder("datasource.reads", primaryReads, LongAdder::sum)
+                .tag("target", "primary")
+                .description("ConexÃµes somente leitura atendidas pelo primÃ¡rio")
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // ComeÃ§a fora de uso: a primeira verificaÃ§Ã£o libera a rÃ©plica, sem esperar connection-timeout numa rÃ©plica fora do ar
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMillis;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void markUp() {
+            if (!healthy) {
+                healthy = true;
+                log.info("RÃ©plica {} disponÃ­vel para leituras (atraso {} ms)", name, lagMillis);
+            }
+        }
+
+        private void markDown(String reason) {
+            if (healthy) {
+                log.warn("RÃ©plica {} fora de uso, leituras vÃ£o ao primÃ¡rio: {}", name, reason);
+            }
+            healthy = false;
+        }
+    }
+}
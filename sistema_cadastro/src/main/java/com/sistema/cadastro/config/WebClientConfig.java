@@ -1,18 +1,55 @@
 ﻿package com.sistema.cadastro.config;
 
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
 
+    // Pool dedicado ao ViaCEP: fila de aquisiÃ§Ã£o limitada e curta para falhar rÃ¡pido em vez de acumular cadastros
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider cepConnectionProvider(
+            @Value("${app.cep.http.pool.max-connections:100}") int maxConnections,
+            @Value("${app.cep.http.pool.pending-acquire-max-count:200}") int pendingAcquireMaxCount,
+            @Value("${app.cep.http.pool.pending-acquire-timeout:PT2S}") Duration pendingAcquireTimeout,
+            @Value("${app.cep.http.pool.max-idle-time:PT30S}") Duration maxIdleTime,
+            @Value("${app.cep.http.pool.max-life-time:PT5M}") Duration maxLifeTime,
+            @Value("${app.cep.http.pool.evict-interval:PT30S}") Duration evictInterval) {
+        return ConnectionProvider.builder("cep")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
     @Bean
     public WebClient webClient(WebClient.Builder builder,
-                               @Value("${app.cep.api.url:https://viacep.com.br/ws}") String baseUrl) {
+                               ConnectionProvider cepConnectionProvider,
+                               @Value("${app.cep.api.url:https://viacep.com.br/ws}") String baseUrl,
+                               @Value("${app.cep.http.connect-timeout:PT2S}") Duration connectTimeout,
+                               @Value("${app.cep.http.response-timeout:PT3S}") Duration responseTimeout) {
+        HttpClient httpClient = HttpClient.create(cepConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(responseTimeout)
+                .metrics(true, uri -> "/{cep}/json/");
+
         return builder
                 .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
 }
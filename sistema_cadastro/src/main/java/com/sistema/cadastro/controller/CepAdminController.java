@@ -0,0 +1,59 @@
+﻿package com.sistema.cadastro.controller;
+
+import com.sistema.cadastro.dto.CepWarmupRequestDTO;
+import com.sistema.cadastro.dto.CepWarmupStatusDTO;
+import com.sistema.cadastro.service.CepWarmupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/cep")
+@RequiredArgsConstructor
+@Tag(name = "AdministraÃ§Ã£o de CEP", description = "OperaÃ§Ãµes administrativas do cache de CEP")
+public class CepAdminController {
+
+    private final CepWarmupService cepWarmupService;
+
+    @PostMapping("/warmup")
+    @Operation(summary = "Aquecer cache de CEP", description = "PrÃ©-carrega uma lista de CEPs no cache em segundo plano")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Aquecimento iniciado",
+                    content = @Content(schema = @Schema(implementation = CepWarmupStatusDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Dados invÃ¡lidos")
+    })
+    public ResponseEntity<CepWarmupStatusDTO> startWarmup(@Valid @RequestBody CepWarmupRequestDTO request) {
+        CepWarmupStatusDTO job = cepWarmupService.start(request.getCeps());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/warmup/{id}")
+    @Operation(summary = "Consultar aquecimento", description = "Retorna progresso e vazÃ£o de um aquecimento do cache de CEP")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Aquecimento encontrado",
+                    content = @Content(schema = @Schema(implementation = CepWarmupStatusDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Aquecimento nÃ£o encontrado")
+    })
+    public ResponseEntity<CepWarmupStatusDTO> getWarmup(
+            @Parameter(description = "ID do aquecimento", required = true)
+            @PathVariable String id) {
+        return ResponseEntity.ok(cepWarmupService.getJob(id));
+    }
+
+    @GetMapping("/warmup")
+    @Operation(summary = "Listar aquecimentos", description = "Retorna os aquecimentos recentes do cache de CEP")
+    public ResponseEntity<List<CepWarmupStatusDTO>> listWarmups() {
+        return ResponseEntity.ok(cepWarmupService.listJobs());
+    }
+}
@@ -0,0 +1,31 @@
+﻿package com.sistema.cadastro.controller;
+
+import com.sistema.cadastro.repository.EntityVersion;
+import com.sistema.cadastro.util.EntityTags;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+
+// GET condicional em duas etapas: a versÃ£o (id, updated_at) decide o 304; no 200 os cabeÃ§alhos saem da entidade
+// realmente devolvida, que pode vir do cache de segundo nÃ­vel ou de uma rÃ©plica diferente da consulta de versÃ£o
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    static boolean notModified(EntityVersion version, WebRequest request) {
+        return request.checkNotModified(EntityTags.of(version.getId(), version.getUpdatedAt()),
+                EntityTags.lastModified(version.getUpdatedAt()));
+    }
+
+    // setHeader substitui o que checkNotModified gravou; cabeÃ§alhos do ResponseEntity seriam somados a eles
+    static void tag(HttpServletResponse response, Long id, LocalDateTime updatedAt) {
+        response.setHeader(HttpHeaders.ETAG, "\"" + EntityTags.of(id, updatedAt) + "\"");
+        long lastModified = EntityTags.lastModified(updatedAt);
+        if (lastModified >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 ﻿package com.sistema.cadastro.controller;
 
+import com.sistema.cadastro.dto.CursorPageDTO;
 import com.sistema.cadastro.dto.ProductDTO;
+import com.sistema.cadastro.dto.StockReservationLineDTO;
+import com.sistema.cadastro.dto.StockReservationRequestDTO;
 import com.sistema.cadastro.entity.Product;
+import com.sistema.cadastro.service.ExportService;
 import com.sistema.cadastro.service.ProductService;
+import com.sistema.cadastro.service.StockReservationService;
+import com.sistema.cadastro.util.EntityTags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,16 +16,23 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -28,6 +41,8 @@ import java.math.BigDecimal;
 public class ProductController {
 
     private final ProductService productService;
+    private final ExportService exportService;
+    private final StockReservationService stockReservationService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -43,17 +58,25 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    // If-None-Match/If-Modified-Since conferidos sÃ³ com id e updated_at; o produto Ã© carregado apenas se mudou
     @GetMapping("/{id}")
     @Operation(summary = "Buscar produto por ID", description = "Retorna os dados de um produto especÃ­fico")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Produto encontrado",
                     content = @Content(schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "304", description = "Produto nÃ£o foi alterado"),
             @ApiResponse(responseCode = "404", description = "Produto nÃ£o encontrado")
     })
     public ResponseEntity<Product> getProductById(
             @Parameter(description = "ID do produto", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request,
+            HttpServletResponse response) {
+        if (ConditionalRequests.notModified(productService.getProductVersion(id), request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         Product product = productService.getProductById(id);
+        ConditionalRequests.tag(response, product.getId(), product.getUpdatedAt());
         return ResponseEntity.ok(product);
     }
 
@@ -62,12 +85,19 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Produto encontrado",
                     content = @Content(schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "304", description = "Produto nÃ£o foi alterado"),
             @ApiResponse(responseCode = "404", description = "Produto nÃ£o encontrado")
     })
     public ResponseEntity<Product> getProductBySku(
             @Parameter(description = "SKU do produto", required = true)
-            @PathVariable String sku) {
+            @PathVariable String sku,
+            WebRequest request,
+            HttpServletResponse response) {
+        if (ConditionalRequests.notModified(productService.getProductVersionBySku(sku), request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         Product product = productService.getProductBySku(sku);
+        ConditionalRequests.tag(response, product.getId(), product.getUpdatedAt());
         return ResponseEntity.ok(product);
     }
 
@@ -81,7 +111,7 @@ public class ProductController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<Product> products = productService.getAllProducts(pageable);
-        return ResponseEntity.ok(products);
+        return withETag(products);
     }
 
     @GetMapping("/active")
@@ -94,7 +124,7 @@ public class ProductController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<Product> products = productService.getActiveProducts(pageable);
-        return ResponseEntity.ok(products);
+        return withETag(products);
     }
 
     @GetMapping("/search")
@@ -126,7 +156,213 @@ public class ProductController {
             @PageableDefault(size = 20) Pageable pageable) {
         Page<Product> products = productService.getProductsByFilters(
                 name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive, pageable);
-        return ResponseEntity.ok(products);
+        return withETag(products);
+    }
+
+    // Mesmas rotas de listagem com ?after=: paginaÃ§Ã£o por cursor, sem OFFSET nem COUNT; after vazio inicia do comeÃ§o
+    @GetMapping(params = "after")
+    @Operation(summary = "Listar produtos por cursor",
+            description = "Retorna produtos ordenados por data de criaÃ§Ã£o; use nextCursor em after para a prÃ³xima pÃ¡gina")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou tamanho de pÃ¡gina invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Product>> getAllProductsAfter(
+            @Parameter(description = "Cursor recebido na pÃ¡gina anterior (vazio para a primeira)")
+            @RequestParam String after,
+            @Parameter(description = "Tamanho da pÃ¡gina (1 a 100)")
+            @RequestParam(defaultValue = "20") int size) {
+        return withETag(productService.getProductsAfter(after, size));
+    }
+
+    @GetMapping(value = "/active", params = "after")
+    @Operation(summary = "Listar produtos ativos por cursor",
+            description = "Retorna produtos ativos ordenados por data de criaÃ§Ã£o com paginaÃ§Ã£o por cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou tamanho de pÃ¡gina invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Product>> getActiveProductsAfter(
+            @Parameter(description = "Cursor recebido na pÃ¡gina anterior (vazio para a primeira)")
+            @RequestParam String after,
+            @Parameter(description = "Tamanho da pÃ¡gina (1 a 100)")
+            @RequestParam(defaultValue = "20") int size) {
+        return withETag(productService.getActiveProductsAfter(after, size));
+    }
+
+    @GetMapping(value = "/search", params = "after")
+    @Operation(summary = "Buscar produtos com filtros por cursor",
+            description = "Mesmos filtros de /search com paginaÃ§Ã£o por cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou tamanho de pÃ¡gina invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Product>> getProductsByFiltersAfter(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String sku,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minStock,
+            @RequestParam(required = false) Integer maxStock,
+            @RequestParam(required = false) Boolean isActive,
+            @Parameter(description = "Cursor recebido na pÃ¡gina anterior (vazio para a primeira)")
+            @RequestParam String after,
+            @Parameter(description = "Tamanho da pÃ¡gina (1 a 100)")
+            @RequestParam(defaultValue = "20") int size) {
+        return withETag(productService.getProductsByFiltersAfter(
+                name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive, after, size));
+    }
+
+    // Mesmas rotas com ?fields=id,name,price: o SELECT e o JSON trazem sÃ³ os campos pedidos
+    @GetMapping(value = "/{id}", params = "fields")
+    @Operation(summary = "Buscar campos de um produto por ID", description = "Retorna apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Produto encontrado"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields"),
+            @ApiResponse(responseCode = "404", description = "Produto nÃ£o encontrado")
+    })
+    public ResponseEntity<Map<String, Object>> getProductFieldsById(
+            @Parameter(description = "ID do produto", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,price")
+            @RequestParam String fields) {
+        return ResponseEntity.ok(productService.getProductFieldsById(id, fields));
+    }
+
+    @GetMapping(params = "fields")
+    @Operation(summary = "Listar campos de produtos", description = "Lista paginada com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de produtos recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields")
+    })
+    public ResponseEntity<Page<Map<String, Object>>> getAllProductFields(
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,price")
+            @RequestParam String fields,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.getAllProductFields(fields, pageable));
+    }
+
+    @GetMapping(value = "/active", params = "fields")
+    @Operation(summary = "Listar campos de produtos ativos", description = "Lista paginada de produtos ativos com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de produtos recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields")
+    })
+    public ResponseEntity<Page<Map<String, Object>>> getActiveProductFields(
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,price")
+            @RequestParam String fields,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.getActiveProductFields(fields, pageable));
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    @Operation(summary = "Buscar campos de produtos com filtros", description = "Mesmos filtros de /search com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de produtos recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields")
+    })
+    public ResponseEntity<Page<Map<String, Object>>> getProductFieldsByFilters(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String sku,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minStock,
+            @RequestParam(required = false) Integer maxStock,
+            @RequestParam(required = false) Boolean isActive,
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,price")
+            @RequestParam String fields,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.getProductFieldsByFilters(
+                name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive, fields, pageable));
+    }
+
+    @GetMapping(params = {"after", "fields"})
+    @Operation(summary = "Listar campos de produtos por cursor", description = "PaginaÃ§Ã£o por cursor com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor, tamanho de pÃ¡gina ou campo invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Map<String, Object>>> getProductFieldsAfter(
+            @RequestParam String fields,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductFieldsAfter(fields, after, size));
+    }
+
+    @GetMapping(value = "/active", params = {"after", "fields"})
+    @Operation(summary = "Listar campos de produtos ativos por cursor",
+            description = "Produtos ativos com paginaÃ§Ã£o por cursor e apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor, tamanho de pÃ¡gina ou campo invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Map<String, Object>>> getActiveProductFieldsAfter(
+            @RequestParam String fields,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getActiveProductFieldsAfter(fields, after, size));
+    }
+
+    @GetMapping(value = "/search", params = {"after", "fields"})
+    @Operation(summary = "Buscar campos de produtos com filtros por cursor",
+            description = "Mesmos filtros de /search com paginaÃ§Ã£o por cursor e apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor, tamanho de pÃ¡gina ou campo invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Map<String, Object>>> getProductFieldsByFiltersAfter(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String sku,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minStock,
+            @RequestParam(required = false) Integer maxStock,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam String fields,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductFieldsByFiltersAfter(
+                name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive, fields, after, size));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exportar produtos",
+            description = "Transmite todos os produtos que atendem aos filtros de /search em CSV ou NDJSON, opcionalmente com gzip")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "ExportaÃ§Ã£o transmitida"),
+            @ApiResponse(responseCode = "400", description = "Formato invÃ¡lido")
+    })
+    public void exportProducts(
+            @Parameter(description = "csv ou ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Compacta a resposta com gzip")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String sku,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minStock,
+            @RequestParam(required = false) Integer maxStock,
+            @RequestParam(required = false) Boolean isActive,
+            HttpServletResponse response) throws IOException {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"produtos." + exportFormat.extension() + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        exportService.exportProducts(name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive,
+                exportFormat, gzip, response.getOutputStream());
     }
 
     @GetMapping("/category/{category}")
@@ -141,7 +377,7 @@ public class ProductController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<Product> products = productService.getProductsByCategory(category, pageable);
-        return ResponseEntity.ok(products);
+        return withETag(products);
     }
 
     @GetMapping("/brand/{brand}")
@@ -156,7 +392,7 @@ public class ProductController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<Product> products = productService.getProductsByBrand(brand, pageable);
-        return ResponseEntity.ok(products);
+        return withETag(products);
     }
 
     @GetMapping("/low-stock")
@@ -171,7 +407,7 @@ public class ProductController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<Product> products = productService.getLowStockProducts(threshold, pageable);
-        return ResponseEntity.ok(products);
+        return withETag(products);
     }
 
     @PutMapping("/{id}")
@@ -208,6 +444,19 @@ public class ProductController {
         return ResponseEntity.ok(updatedProduct);
     }
 
+    @PostMapping("/stock/reservations")
+    @Operation(summary = "Reservar estoque de vÃ¡rios produtos",
+            description = "Baixa o estoque de todos os itens (por productId ou sku) numa Ãºnica transaÃ§Ã£o: ou todos sÃ£o reservados, ou nenhum")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estoque reservado; cada linha traz o estoque restante"),
+            @ApiResponse(responseCode = "400", description = "Item sem identificaÃ§Ã£o ou quantidade invÃ¡lida"),
+            @ApiResponse(responseCode = "404", description = "Produto nÃ£o encontrado"),
+            @ApiResponse(responseCode = "409", description = "Estoque insuficiente; details lista as linhas sem estoque")
+    })
+    public ResponseEntity<List<StockReservationLineDTO>> reserveStock(@Valid @RequestBody StockReservationRequestDTO request) {
+        return ResponseEntity.ok(stockReservationService.reserve(request.getItems()));
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Deletar produto", description = "Remove um produto do sistema")
@@ -265,4 +514,16 @@ public class ProductController {
         long count = productService.countProductsByBrand(brand);
         return ResponseEntity.ok(count);
     }
+
+    // ETag da pÃ¡gina: o Spring responde 304 sozinho quando If-None-Match confere, sem serializar o conteÃºdo
+    private static ResponseEntity<Page<Product>> withETag(Page<Product> products) {
+        return ResponseEntity.ok().eTag(EntityTags.ofPage(products, Product::getId, Product::getUpdatedAt)).body(products);
+    }
+
+    private static ResponseEntity<CursorPageDTO<Product>> withETag(CursorPageDTO<Product> products) {
+        return ResponseEntity.ok()
+                .eTag(EntityTags.ofContent(products.getContent(), Product::getId, Product::getUpdatedAt,
+                        products.getNextCursor()))
+                .body(products);
+    }
 }
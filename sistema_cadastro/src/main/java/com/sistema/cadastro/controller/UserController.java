@@ -1,8 +1,14 @@
 ﻿package com.sistema.cadastro.controller;
 
+import com.sistema.cadastro.dto.CursorPageDTO;
+import com.sistema.cadastro.dto.RegistrationBucketDTO;
 import com.sistema.cadastro.dto.UserDTO;
 import com.sistema.cadastro.entity.User;
+import com.sistema.cadastro.service.ExportService;
+import com.sistema.cadastro.service.RegistrationStatsService;
+import com.sistema.cadastro.service.UserBulkImportService;
 import com.sistema.cadastro.service.UserService;
+import com.sistema.cadastro.util.EntityTags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,14 +16,27 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/users")
@@ -26,6 +45,8 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final UserBulkImportService userBulkImportService;
+    private final ExportService exportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -37,22 +58,53 @@ public class UserController {
             @ApiResponse(responseCode = "409", description = "CPF ou email jÃ¡ cadastrado"),
             @ApiResponse(responseCode = "422", description = "CEP invÃ¡lido ou nÃ£o encontrado")
     })
-    public ResponseEntity<User> createUser(@Valid @RequestBody UserDTO userDTO) {
-        User createdUser = userService.createUser(userDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+    public CompletableFuture<ResponseEntity<User>> createUser(@Valid @RequestBody UserDTO userDTO) {
+        return userService.createUser(userDTO)
+                .thenApply(createdUser -> ResponseEntity.status(HttpStatus.CREATED).body(createdUser));
+    }
+
+    // Escreve o relatÃ³rio direto na resposta enquanto lÃª a requisiÃ§Ã£o, sem passar pelo timeout de requisiÃ§Ãµes assÃ­ncronas
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    @Operation(summary = "Importar usuÃ¡rios em lote",
+            description = "Recebe NDJSON (um UserDTO por linha) ou CSV com cabeÃ§alho name,email,cpf,cep[,number] " +
+                    "e devolve, em NDJSON, o resultado de cada linha seguido de um resumo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "ImportaÃ§Ã£o processada; verifique o status de cada linha"),
+            @ApiResponse(responseCode = "400", description = "CabeÃ§alho CSV invÃ¡lido")
+    })
+    public void bulkImportUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        UserBulkImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? UserBulkImportService.Format.CSV
+                : UserBulkImportService.Format.NDJSON;
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        userBulkImportService.importUsers(request.getInputStream(), format, response.getOutputStream());
     }
 
+    // If-None-Match/If-Modified-Since conferidos sÃ³ com id e updated_at; o usuÃ¡rio Ã© carregado apenas se mudou
     @GetMapping("/{id}")
     @Operation(summary = "Buscar usuÃ¡rio por ID", description = "Retorna os dados de um usuÃ¡rio especÃ­fico")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "UsuÃ¡rio encontrado",
                     content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "304", description = "UsuÃ¡rio nÃ£o foi alterado"),
             @ApiResponse(responseCode = "404", description = "UsuÃ¡rio nÃ£o encontrado")
     })
     public ResponseEntity<User> getUserById(
             @Parameter(description = "ID do usuÃ¡rio", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request,
+            HttpServletResponse response) {
+        if (ConditionalRequests.notModified(userService.getUserVersion(id), request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         User user = userService.getUserById(id);
+        ConditionalRequests.tag(response, user.getId(), user.getUpdatedAt());
         return ResponseEntity.ok(user);
     }
 
@@ -66,7 +118,7 @@ public class UserController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<User> users = userService.getAllUsers(pageable);
-        return ResponseEntity.ok(users);
+        return withETag(users);
     }
 
     @GetMapping("/search")
@@ -89,7 +141,151 @@ public class UserController {
             @Parameter(description = "ParÃ¢metros de paginaÃ§Ã£o")
             @PageableDefault(size = 20) Pageable pageable) {
         Page<User> users = userService.getUsersByFilters(name, email, cpf, city, state, pageable);
-        return ResponseEntity.ok(users);
+        return withETag(users);
+    }
+
+    // Mesmas rotas de listagem com ?after=: paginaÃ§Ã£o por cursor, sem OFFSET nem COUNT; after vazio inicia do comeÃ§o
+    @GetMapping(params = "after")
+    @Operation(summary = "Listar usuÃ¡rios por cursor",
+            description = "Retorna usuÃ¡rios ordenados por data de criaÃ§Ã£o; use nextCursor em after para a prÃ³xima pÃ¡gina")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou tamanho de pÃ¡gina invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<User>> getAllUsersAfter(
+            @Parameter(description = "Cursor recebido na pÃ¡gina anterior (vazio para a primeira)")
+            @RequestParam String after,
+            @Parameter(description = "Tamanho da pÃ¡gina (1 a 100)")
+            @RequestParam(defaultValue = "20") int size) {
+        return withETag(userService.getUsersAfter(after, size));
+    }
+
+    @GetMapping(value = "/search", params = "after")
+    @Operation(summary = "Buscar usuÃ¡rios com filtros por cursor",
+            description = "Mesmos filtros de /search com paginaÃ§Ã£o por cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou tamanho de pÃ¡gina invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<User>> getUsersByFiltersAfter(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String cpf,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            @Parameter(description = "Cursor recebido na pÃ¡gina anterior (vazio para a primeira)")
+            @RequestParam String after,
+            @Parameter(description = "Tamanho da pÃ¡gina (1 a 100)")
+            @RequestParam(defaultValue = "20") int size) {
+        return withETag(userService.getUsersByFiltersAfter(name, email, cpf, city, state, after, size));
+    }
+
+    // Mesmas rotas com ?fields=id,name,...: o SELECT e o JSON trazem sÃ³ os campos pedidos
+    @GetMapping(value = "/{id}", params = "fields")
+    @Operation(summary = "Buscar campos de um usuÃ¡rio por ID", description = "Retorna apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "UsuÃ¡rio encontrado"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields"),
+            @ApiResponse(responseCode = "404", description = "UsuÃ¡rio nÃ£o encontrado")
+    })
+    public ResponseEntity<Map<String, Object>> getUserFieldsById(
+            @Parameter(description = "ID do usuÃ¡rio", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,email")
+            @RequestParam String fields) {
+        return ResponseEntity.ok(userService.getUserFieldsById(id, fields));
+    }
+
+    @GetMapping(params = "fields")
+    @Operation(summary = "Listar campos de usuÃ¡rios", description = "Lista paginada com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de usuÃ¡rios recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields")
+    })
+    public ResponseEntity<Page<Map<String, Object>>> getAllUserFields(
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,email")
+            @RequestParam String fields,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(userService.getAllUserFields(fields, pageable));
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    @Operation(summary = "Buscar campos de usuÃ¡rios com filtros", description = "Mesmos filtros de /search com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de usuÃ¡rios recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo nÃ£o permitido em fields")
+    })
+    public ResponseEntity<Page<Map<String, Object>>> getUserFieldsByFilters(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String cpf,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            @Parameter(description = "Campos separados por vÃ­rgula", example = "id,name,email")
+            @RequestParam String fields,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(userService.getUserFieldsByFilters(name, email, cpf, city, state, fields, pageable));
+    }
+
+    @GetMapping(params = {"after", "fields"})
+    @Operation(summary = "Listar campos de usuÃ¡rios por cursor", description = "PaginaÃ§Ã£o por cursor com apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor, tamanho de pÃ¡gina ou campo invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Map<String, Object>>> getUserFieldsAfter(
+            @RequestParam String fields,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.getUserFieldsAfter(fields, after, size));
+    }
+
+    @GetMapping(value = "/search", params = {"after", "fields"})
+    @Operation(summary = "Buscar campos de usuÃ¡rios com filtros por cursor",
+            description = "Mesmos filtros de /search com paginaÃ§Ã£o por cursor e apenas os campos informados em fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PÃ¡gina recuperada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor, tamanho de pÃ¡gina ou campo invÃ¡lido")
+    })
+    public ResponseEntity<CursorPageDTO<Map<String, Object>>> getUserFieldsByFiltersAfter(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String cpf,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            @RequestParam String fields,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.getUserFieldsByFiltersAfter(name, email, cpf, city, state, fields, after, size));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exportar usuÃ¡rios",
+            description = "Transmite todos os usuÃ¡rios que atendem aos filtros de /search em CSV ou NDJSON, opcionalmente com gzip")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "ExportaÃ§Ã£o transmitida"),
+            @ApiResponse(responseCode = "400", description = "Formato invÃ¡lido")
+    })
+    public void exportUsers(
+            @Parameter(description = "csv ou ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Compacta a resposta com gzip")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String cpf,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            HttpServletResponse response) throws IOException {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios." + exportFormat.extension() + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        exportService.exportUsers(name, email, cpf, city, state, exportFormat, gzip, response.getOutputStream());
     }
 
     @GetMapping("/cpf/{cpf}")
@@ -174,4 +370,31 @@ public class UserController {
         long count = userService.countUsersCreatedLastMonth();
         return ResponseEntity.ok(count);
     }
+
+    @GetMapping("/stats/histogram")
+    @Operation(summary = "EstatÃ­sticas - Histograma de cadastros", description = "Retorna a quantidade de usuÃ¡rios criados por hora ou por dia no intervalo [from, to)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Histograma recuperado com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Intervalo invÃ¡lido ou com buckets demais")
+    })
+    public ResponseEntity<List<RegistrationBucketDTO>> getRegistrationHistogram(
+            @Parameter(description = "InÃ­cio do intervalo (ISO-8601)", example = "2026-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fim do intervalo, exclusivo (ISO-8601)", example = "2026-01-08T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Granularidade: HOUR ou DAY")
+            @RequestParam(defaultValue = "HOUR") RegistrationStatsService.Bucket bucket) {
+        return ResponseEntity.ok(userService.getRegistrationHistogram(from, to, bucket));
+    }
+
+    // ETag da pÃ¡gina: o Spring responde 304 sozinho quando If-None-Match confere, sem serializar o conteÃºdo
+    private static ResponseEntity<Page<User>> withETag(Page<User> users) {
+        return ResponseEntity.ok().eTag(EntityTags.ofPage(users, User::getId, User::getUpdatedAt)).body(users);
+    }
+
+    private static ResponseEntity<CursorPageDTO<User>> withETag(CursorPageDTO<User> users) {
+        return ResponseEntity.ok()
+                .eTag(EntityTags.ofContent(users.getContent(), User::getId, User::getUpdatedAt, users.getNextCursor()))
+                .body(users);
+    }
 }
@@ -0,0 +1,19 @@
+﻿package com.sistema.cadastro.dataset;
+
+final class CepDatasetFormat {
+
+    static final int MAGIC = 0x43455031;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    static final int FIELD_LOGRADOURO = 0;
+    static final int FIELD_BAIRRO = 1;
+    static final int FIELD_LOCALIDADE = 2;
+    static final int FIELD_UF = 3;
+    static final int FIELD_COUNT = 4;
+
+    static final int NO_VALUE = -1;
+
+    private CepDatasetFormat() {
+    }
+}
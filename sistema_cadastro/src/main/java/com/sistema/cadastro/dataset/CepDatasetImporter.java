@@ -0,0 +1,227 @@
+﻿package com.sistema.cadastro.dataset;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sistema.cadastro.util.CsvLines;
+import com.sistema.cadastro.util.DocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.sistema.cadastro.dataset.CepDatasetFormat.*;
+
+public final class CepDatasetImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CepDatasetImporter.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private int[] keys = new int[1024];
+    private int[] refs = new int[1024 * FIELD_COUNT];
+    private int count;
+    private int skipped;
+
+    private CepDatasetImporter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: CepDatasetImporter <origem.csv|origem.ndjson> <destino.bin>");
+            System.exit(1);
+        }
+        importFile(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    public static int importFile(Path source, Path target) throws IOException {
+        CepDatasetImporter importer = new CepDatasetImporter();
+        String name = source.getFileName().toString().toLowerCase(Locale.ROOT);
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                importer.readNdjson(reader);
+            } else {
+                importer.readCsv(reader);
+            }
+        }
+
+        int written = importer.write(target);
+        log.info("Base de CEPs importada de {} para {}: {} registros, {} ignorados, {} textos distintos",
+                source, target, written, importer.skipped, importer.dictionary.size());
+        return written;
+    }
+
+    private void readNdjson(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = objectMapper.readTree(line);
+            add(text(node, "cep"), text(node, "logradouro"), text(node, "bairro"),
+                    text(node, "localidade"), text(node, "uf"));
+        }
+    }
+
+    private void readCsv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+
+        char delimiter = header.indexOf(';') >= 0 ? ';' : ',';
+        List<String> columns = CsvLines.split(header, delimiter);
+        int cepColumn = column(columns, "cep");
+        int logradouroColumn = column(columns, "logradouro");
+        int bairroColumn = column(columns, "bairro");
+        int localidadeColumn = column(columns, "localidade", "cidade");
+        int ufColumn = column(columns, "uf", "estado");
+
+        if (cepColumn < 0 || localidadeColumn < 0 || ufColumn < 0) {
+            throw new IOException("CabeÃ§alho CSV deve conter as colunas cep, localidade e uf");
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> values = CsvLines.split(line, delimiter);
+            add(value(values, cepColumn), value(values, logradouroColumn), value(values, bairroColumn),
+                    value(values, localidadeColumn), value(values, ufColumn));
+        }
+    }
+
+    private void add(String cep, String logradouro, String bairro, String localidade, String uf) {
+        int key = DocumentCodec.packCep(cep);
+        if (key < 0 || isBlank(localidade) || isBlank(uf)) {
+            skipped++;
+            return;
+        }
+
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            refs = Arrays.copyOf(refs, count * 2 * FIELD_COUNT);
+        }
+
+        int base = count * FIELD_COUNT;
+        keys[count] = key;
+        refs[base + FIELD_LOGRADOURO] = intern(logradouro);
+        refs[base + FIELD_BAIRRO] = intern(bairro);
+        refs[base + FIELD_LOCALIDADE] = intern(localidade);
+        refs[base + FIELD_UF] = intern(uf.toUpperCase(Locale.ROOT));
+        count++;
+    }
+
+    private int write(Path target) throws IOException {
+        // Ordena por CEP mantendo a posiÃ§Ã£o de entrada; em duplicados vale o Ãºltimo registro lido
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] sorted = new int[count];
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            boolean lastOfKey = i + 1 == count || (int) (order[i + 1] >>> 32) != (int) (order[i] >>> 32);
+            if (lastOfKey) {
+                sorted[unique++] = (int) order[i];
+            }
+        }
+
+        byte[][] encoded = new byte[dictionary.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "cep-dataset", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(unique);
+            out.writeInt(FIELD_COUNT);
+            out.writeInt(encoded.length);
+
+            for (int i = 0; i < unique; i++) {
+                out.writeInt(keys[sorted[i]]);
+            }
+            for (int i = 0; i < unique; i++) {
+                int base = sorted[i] * FIELD_COUNT;
+                for (int field = 0; field < FIELD_COUNT; field++) {
+                    out.writeInt(refs[base + field]);
+                }
+            }
+
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] bytes : encoded) {
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return unique;
+    }
+
+    private int intern(String value) {
+        if (isBlank(value)) {
+            return NO_VALUE;
+        }
+        String trimmed = value.trim();
+        Integer id = dictionaryIds.get(trimmed);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.add(trimmed);
+            dictionaryIds.put(trimmed, id);
+        }
+        return id;
+    }
+
+    private static int column(List<String> columns, String... names) {
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String value(List<String> values, int column) {
+        return column >= 0 && column < values.size() ? values.get(column) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,165 @@
+﻿package com.sistema.cadastro.dataset;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.util.DocumentCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.sistema.cadastro.dataset.CepDatasetFormat.*;
+
+public final class CepDatasetIndex {
+
+    private final Path path;
+    private final int size;
+    private final IntBuffer keys;
+    private final IntBuffer refs;
+    private final int dictionarySize;
+    private final IntBuffer dictionaryOffsets;
+    private final ByteBuffer blob;
+
+    private CepDatasetIndex(Path path, int size, IntBuffer keys, IntBuffer refs, int dictionarySize,
+                            IntBuffer dictionaryOffsets, ByteBuffer blob) {
+        this.path = path;
+        this.size = size;
+        this.keys = keys;
+        this.refs = refs;
+        this.dictionarySize = dictionarySize;
+        this.dictionaryOffsets = dictionaryOffsets;
+        this.blob = blob;
+    }
+
+    public static CepDatasetIndex open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Base de CEPs maior que 2 GB: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Arquivo nÃ£o Ã© uma base de CEPs vÃ¡lida: " + path);
+        }
+        if (buffer.getInt(4) != VERSION || buffer.getInt(12) != FIELD_COUNT) {
+            throw new IOException("VersÃ£o da base de CEPs nÃ£o suportada: " + path);
+        }
+
+        int size = buffer.getInt(8);
+        int dictionarySize = buffer.getInt(16);
+        if (size < 0 || dictionarySize < 0) {
+            throw new IOException("CabeÃ§alho da base de CEPs corrompido: " + path);
+        }
+
+        // Em long: contagens corrompidas nÃ£o podem dar a volta no int e cair dentro do arquivo
+        long keysOffset = HEADER_BYTES;
+        long refsOffset = keysOffset + (long) size * Integer.BYTES;
+        long dictionaryOffsetsOffset = refsOffset + (long) size * FIELD_COUNT * Integer.BYTES;
+        long blobOffset = dictionaryOffsetsOffset + ((long) dictionarySize + 1) * Integer.BYTES;
+        if (blobOffset > buffer.capacity()) {
+            throw new IOException("Base de CEPs truncada: " + path);
+        }
+
+        IntBuffer keys = slice(buffer, (int) keysOffset, size * Integer.BYTES).asIntBuffer();
+        IntBuffer refs = slice(buffer, (int) refsOffset, size * FIELD_COUNT * Integer.BYTES).asIntBuffer();
+
+        // O dicionÃ¡rio inclui todos os logradouros distintos (na base nacional, perto de um milhÃ£o de textos):
+        // fica mapeado junto com o resto e sÃ³ os campos do CEP encontrado sÃ£o decodificados
+        IntBuffer dictionaryOffsets = slice(buffer, (int) dictionaryOffsetsOffset, (dictionarySize + 1) * Integer.BYTES).asIntBuffer();
+        ByteBuffer blob = buffer.slice((int) blobOffset, buffer.capacity() - (int) blobOffset);
+
+        validate(path, refs, dictionarySize, dictionaryOffsets, blob.capacity());
+        return new CepDatasetIndex(path, size, keys, refs, dictionarySize, dictionaryOffsets, blob);
+    }
+
+    // Uma passada na abertura garante que nenhuma consulta lÃª fora do arquivo: referÃªncias apontam para o dicionÃ¡rio
+    // e cada texto fica dentro do blob
+    private static void validate(Path path, IntBuffer refs, int dictionarySize, IntBuffer dictionaryOffsets,
+                                 int blobLength) throws IOException {
+        int previous = 0;
+        for (int i = 0; i <= dictionarySize; i++) {
+            int offset = dictionaryOffsets.get(i);
+            if (offset < previous || offset > blobLength) {
+                throw new IOException("DicionÃ¡rio da base de CEPs corrompido na entrada " + i + ": " + path);
+            }
+            previous = offset;
+        }
+        for (int i = 0; i < refs.capacity(); i++) {
+            int ref = refs.get(i);
+            if (ref != NO_VALUE && (ref < 0 || ref >= dictionarySize)) {
+                throw new IOException("ReferÃªncia invÃ¡lida na base de CEPs (registro " + i / FIELD_COUNT + "): " + path);
+            }
+        }
+    }
+
+    public int indexOf(int cep) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int key = keys.get(mid);
+            if (key < cep) {
+                low = mid + 1;
+            } else if (key > cep) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public CepDataDTO find(String cleanCep) {
+        int cep = DocumentCodec.packCep(cleanCep);
+        if (cep < 0) {
+            return null;
+        }
+
+        int index = indexOf(cep);
+        if (index < 0) {
+            return null;
+        }
+
+        return CepDataDTO.builder()
+                .cep(cleanCep.substring(0, 5) + "-" + cleanCep.substring(5))
+                .logradouro(field(index, FIELD_LOGRADOURO))
+                .bairro(field(index, FIELD_BAIRRO))
+                .localidade(field(index, FIELD_LOCALIDADE))
+                .uf(field(index, FIELD_UF))
+                .erro(false)
+                .build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dictionarySize() {
+        return dictionarySize;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private String field(int index, int field) {
+        int ref = refs.get(index * FIELD_COUNT + field);
+        if (ref == NO_VALUE) {
+            return null;
+        }
+        int start = dictionaryOffsets.get(ref);
+        byte[] bytes = new byte[dictionaryOffsets.get(ref + 1) - start];
+        blob.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        return buffer.slice(offset, length);
+    }
+}
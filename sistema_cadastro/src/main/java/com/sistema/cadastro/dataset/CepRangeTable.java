@@ -0,0 +1,144 @@
+﻿package com.sistema.cadastro.dataset;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.util.CsvLines;
+import com.sistema.cadastro.util.DocumentCodec;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class CepRangeTable {
+
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] cities;
+    private final String[] states;
+
+    private CepRangeTable(int[] starts, int[] ends, String[] cities, String[] states) {
+        this.starts = starts;
+        this.ends = ends;
+        this.cities = cities;
+        this.states = states;
+    }
+
+    // Formato: cep_inicial;cep_final;localidade;uf (separador ';' ou ','; cabeÃ§alho opcional)
+    public static CepRangeTable load(Path path) throws IOException {
+        List<int[]> bounds = new ArrayList<>();
+        List<String> cityValues = new ArrayList<>();
+        List<String> stateValues = new ArrayList<>();
+        Map<String, String> interned = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1);
+                }
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                char delimiter = line.indexOf(';') >= 0 ? ';' : ',';
+                List<String> values = CsvLines.split(line, delimiter);
+                int start = values.size() > 0 ? DocumentCodec.packCep(values.get(0)) : -1;
+                if (start < 0 && lineNumber == 1) {
+                    continue;
+                }
+
+                int end = values.size() > 1 ? DocumentCodec.packCep(values.get(1)) : -1;
+                if (values.size() < 4 || start < 0 || end < start
+                        || values.get(2).isBlank() || values.get(3).isBlank()) {
+                    throw new IOException("Faixa de CEP invÃ¡lida na linha " + lineNumber + ": " + line);
+                }
+
+                bounds.add(new int[]{start, end});
+                cityValues.add(interned.computeIfAbsent(values.get(2).trim(), v -> v));
+                stateValues.add(interned.computeIfAbsent(values.get(3).trim().toUpperCase(Locale.ROOT), v -> v));
+            }
+        }
+
+        return build(bounds, cityValues, stateValues);
+    }
+
+    private static CepRangeTable build(List<int[]> bounds, List<String> cityValues, List<String> stateValues)
+            throws IOException {
+        int count = bounds.size();
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) bounds.get(i)[0] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        String[] cities = new String[count];
+        String[] states = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            int source = (int) order[i];
+            starts[i] = bounds.get(source)[0];
+            ends[i] = bounds.get(source)[1];
+            cities[i] = cityValues.get(source);
+            states[i] = stateValues.get(source);
+
+            if (i > 0 && starts[i] <= ends[i - 1]) {
+                throw new IOException(String.format("Faixas de CEP sobrepostas: %08d-%08d (%s) e %08d-%08d (%s)",
+                        starts[i - 1], ends[i - 1], cities[i - 1], starts[i], ends[i], cities[i]));
+            }
+        }
+
+        return new CepRangeTable(starts, ends, cities, states);
+    }
+
+    public int indexOf(int cep) {
+        // Maior inÃ­cio <= cep; como as faixas nÃ£o se sobrepÃµem, basta conferir o fim dessa faixa
+        int low = 0;
+        int high = starts.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= cep) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return candidate >= 0 && cep <= ends[candidate] ? candidate : -1;
+    }
+
+    public CepDataDTO resolve(String cleanCep) {
+        int cep = DocumentCodec.packCep(cleanCep);
+        if (cep < 0) {
+            return null;
+        }
+
+        int index = indexOf(cep);
+        if (index < 0) {
+            return null;
+        }
+
+        return CepDataDTO.builder()
+                .cep(cleanCep.substring(0, 5) + "-" + cleanCep.substring(5))
+                .localidade(cities[index])
+                .uf(states[index])
+                .erro(false)
+                .degraded(true)
+                .build();
+    }
+
+    public int size() {
+        return starts.length;
+    }
+}
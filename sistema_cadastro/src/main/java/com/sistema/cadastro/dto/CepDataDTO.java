@@ -1,5 +1,6 @@
 ﻿package com.sistema.cadastro.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -47,6 +48,10 @@ public class CepDataDTO {
     @JsonProperty("erro")
     private Boolean erro;
 
+    // Resolvido apenas por faixa de CEP (cidade/UF), sem logradouro e bairro
+    @JsonIgnore
+    private boolean degraded;
+
     public boolean isValid() {
         return erro == null || !erro;
     }
@@ -93,6 +98,7 @@ public class CepDataDTO {
     public String getDdd() { return ddd; }
     public String getSiafi() { return siafi; }
     public Boolean getErro() { return erro; }
+    public boolean isDegraded() { return degraded; }
 
     public void setCep(String cep) { this.cep = cep; }
     public void setLogradouro(String logradouro) { this.logradouro = logradouro; }
@@ -105,4 +111,5 @@ public class CepDataDTO {
     public void setDdd(String ddd) { this.ddd = ddd; }
     public void setSiafi(String siafi) { this.siafi = siafi; }
     public void setErro(Boolean erro) { this.erro = erro; }
+    public void setDegraded(boolean degraded) { this.degraded = degraded; }
 }
@@ -0,0 +1,21 @@
+﻿package com.sistema.cadastro.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CepWarmupRequestDTO {
+
+    @NotEmpty(message = "Lista de CEPs Ã© obrigatÃ³ria")
+    @Size(max = 100000, message = "MÃ¡ximo de 100000 CEPs por requisiÃ§Ã£o")
+    private List<String> ceps;
+}
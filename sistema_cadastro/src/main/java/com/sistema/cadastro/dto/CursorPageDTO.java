@@ -0,0 +1,36 @@
+﻿package com.sistema.cadastro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sistema.cadastro.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    // rows vem com atÃ© size + 1 registros (KeysetCursor.fetchLimit); o excedente sÃ³ indica que hÃ¡ prÃ³xima pÃ¡gina
+    public static <T> CursorPageDTO<T> of(List<T> rows, int size, Function<T, KeysetCursor> position) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return CursorPageDTO.<T>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? position.apply(content.get(content.size() - 1)).encode() : null)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+﻿package com.sistema.cadastro.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationItemDTO {
+
+    // Um dos dois identifica o produto
+    private Long productId;
+
+    private String sku;
+
+    @NotNull(message = "Quantidade Ã© obrigatÃ³ria")
+    @Positive(message = "Quantidade deve ser maior que zero")
+    @Max(value = 999999, message = "Quantidade deve ter no mÃ¡ximo 6 dÃ­gitos")
+    private Integer quantity;
+}
@@ -0,0 +1,24 @@
+﻿package com.sistema.cadastro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockReservationLineDTO {
+
+    private int line;
+    private Long productId;
+    private String sku;
+    private int quantity;
+    // Preenchido na falta de estoque: o que havia quando as linhas foram travadas
+    private Integer availableStock;
+    // Preenchido na reserva concluÃ­da: estoque do produto depois da baixa
+    private Integer remainingStock;
+}
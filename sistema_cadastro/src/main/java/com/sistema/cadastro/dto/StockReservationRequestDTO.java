@@ -0,0 +1,22 @@
+﻿package com.sistema.cadastro.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequestDTO {
+
+    @NotEmpty(message = "Lista de itens Ã© obrigatÃ³ria")
+    @Size(max = 100, message = "MÃ¡ximo de 100 itens por reserva")
+    private List<@Valid StockReservationItemDTO> items;
+}
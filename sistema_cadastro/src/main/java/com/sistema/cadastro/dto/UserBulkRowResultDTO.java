@@ -0,0 +1,22 @@
+﻿package com.sistema.cadastro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBulkRowResultDTO {
+
+    private int line;
+    private String status;
+    private Long id;
+    private String addressStatus;
+    private String errorCode;
+    private String message;
+}
@@ -0,0 +1,20 @@
+﻿package com.sistema.cadastro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkSummaryDTO {
+
+    private boolean summary;
+    private int total;
+    private int created;
+    private int rejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
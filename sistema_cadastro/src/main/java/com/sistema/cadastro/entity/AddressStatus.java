@@ -0,0 +1,7 @@
+﻿package com.sistema.cadastro.entity;
+
+public enum AddressStatus {
+    PENDING,
+    ENRICHED,
+    FAILED
+}
@@ -0,0 +1,56 @@
+﻿package com.sistema.cadastro.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cep_cache", indexes = @Index(name = "idx_cep_cache_fetched_at", columnList = "fetched_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+public class CepCacheEntry {
+
+    @Id
+    @Column(name = "cep", length = 8)
+    private String cep;
+
+    @Column(name = "logradouro", length = 200)
+    private String logradouro;
+
+    @Column(name = "complemento", length = 100)
+    private String complemento;
+
+    @Column(name = "bairro", length = 100)
+    private String bairro;
+
+    @Column(name = "localidade", length = 100)
+    private String localidade;
+
+    @Column(name = "uf", length = 2)
+    private String uf;
+
+    @Column(name = "ibge", length = 10)
+    private String ibge;
+
+    @Column(name = "gia", length = 10)
+    private String gia;
+
+    @Column(name = "ddd", length = 3)
+    private String ddd;
+
+    @Column(name = "siafi", length = 10)
+    private String siafi;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
@@ -9,6 +9,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,7 +21,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_products_active_created_at_id", columnList = "is_active, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -25,8 +32,14 @@ import java.time.LocalDateTime;
 @Setter
 @Getter
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
+@NaturalIdCache(region = Product.NATURAL_ID_CACHE_REGION)
 public class Product {
 
+    public static final String CACHE_REGION = "products";
+    public static final String NATURAL_ID_CACHE_REGION = "products-natural-id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -43,6 +56,7 @@ public class Product {
     @NotBlank(message = "SKU Ã© obrigatÃ³rio")
     @Pattern(regexp = "^[A-Z0-9-]+$", message = "SKU deve conter apenas letras maiÃºsculas, nÃºmeros e hÃ­fens")
     @Size(min = 3, max = 50, message = "SKU deve ter entre 3 e 50 caracteres")
+    @NaturalId
     @Column(name = "sku", nullable = false, unique = true, length = 50)
     private String sku;
 
@@ -1,5 +1,6 @@
 ﻿package com.sistema.cadastro.entity;
 
+import com.sistema.cadastro.util.DocumentCodec;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -12,6 +13,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,7 +24,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_created_at_id", columnList = "created_at, id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -27,8 +32,14 @@ import java.time.LocalDateTime;
 @Setter
 @Getter
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
 public class User {
 
+    public static final String CACHE_REGION = "users";
+    public static final String NATURAL_ID_CACHE_REGION = "users-natural-id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -46,6 +57,7 @@ public class User {
 
     @NotBlank(message = "CPF Ã© obrigatÃ³rio")
     @Pattern(regexp = "^\\d{11}$", message = "CPF deve conter apenas nÃºmeros e ter 11 dÃ­gitos")
+    @NaturalId
     @Column(name = "cpf", nullable = false, unique = true, length = 11)
     private String cpf;
 
@@ -78,6 +90,10 @@ public class User {
     @Column(name = "number", length = 10)
     private String number;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "address_status", length = 20)
+    private AddressStatus addressStatus;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -89,51 +105,11 @@ public class User {
     @PrePersist
     @PreUpdate
     public void validate() {
-        if (cpf != null && !isValidCpf(cpf)) {
+        if (cpf != null && !DocumentCodec.isValidCpf(cpf)) {
             throw new IllegalArgumentException("CPF invÃ¡lido");
         }
     }
 
-    private boolean isValidCpf(String cpf) {
-
-        cpf = cpf.replaceAll("\\D", "");
-
-        if (cpf.length() != 11) {
-            return false;
-        }
-
-        boolean allDigitsEqual = true;
-        for (int i = 1; i < cpf.length(); i++) {
-            if (cpf.charAt(i) != cpf.charAt(0)) {
-                allDigitsEqual = false;
-                break;
-            }
-        }
-        if (allDigitsEqual) {
-            return false;
-        }
-
-        int sum = 0;
-        for (int i = 0; i < 9; i++) {
-            sum += (cpf.charAt(i) - '0') * (10 - i);
-        }
-        int firstDigit = 11 - (sum % 11);
-        if (firstDigit >= 10) {
-            firstDigit = 0;
-        }
-
-        sum = 0;
-        for (int i = 0; i < 10; i++) {
-            sum += (cpf.charAt(i) - '0') * (11 - i);
-        }
-        int secondDigit = 11 - (sum % 11);
-        if (secondDigit >= 10) {
-            secondDigit = 0;
-        }
-
-        return cpf.charAt(9) - '0' == firstDigit && cpf.charAt(10) - '0' == secondDigit;
-    }
-
     public Long getId() {
         return this.id;
     }
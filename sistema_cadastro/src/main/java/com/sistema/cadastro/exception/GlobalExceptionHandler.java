@@ -86,6 +86,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, ex.getStatus());
     }
 
+    @ExceptionHandler(StockShortageException.class)
+    public ResponseEntity<Map<String, Object>> handleStockShortageException(
+            StockShortageException ex, HttpServletRequest request) {
+
+        Map<String, Object> response = createErrorResponse(
+                ex.getStatus(),
+                ex.getMessage(),
+                ex.getErrorCode(),
+                request.getRequestURI(),
+                ex.getShortages()
+        );
+
+        log.error("Estoque insuficiente: {}", ex.getShortages());
+        return new ResponseEntity<>(response, ex.getStatus());
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handleResourceNotFoundException(
             ResourceNotFoundException ex, HttpServletRequest request) {
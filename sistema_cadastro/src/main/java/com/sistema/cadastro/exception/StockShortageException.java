@@ -0,0 +1,18 @@
+﻿package com.sistema.cadastro.exception;
+
+import com.sistema.cadastro.dto.StockReservationLineDTO;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+public class StockShortageException extends BusinessException {
+
+    private final List<StockReservationLineDTO> shortages;
+
+    public StockShortageException(List<StockReservationLineDTO> shortages) {
+        super("Estoque insuficiente em " + shortages.size() + " item(ns) da reserva", HttpStatus.CONFLICT, "INSUFFICIENT_STOCK");
+        this.shortages = shortages;
+    }
+
+    public List<StockReservationLineDTO> getShortages() { return this.shortages; }
+}
@@ -0,0 +1,18 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.AddressEnrichmentOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AddressEnrichmentOutboxRepository extends JpaRepository<AddressEnrichmentOutbox, Long> {
+
+    @Query(value = "SELECT * FROM address_enrichment_outbox o WHERE o.next_attempt_at <= :now " +
+           "ORDER BY o.next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<AddressEnrichmentOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
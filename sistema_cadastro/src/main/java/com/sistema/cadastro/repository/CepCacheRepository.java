@@ -0,0 +1,18 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.CepCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CepCacheRepository extends JpaRepository<CepCacheEntry, String> {
+
+    @Modifying
+    @Query("DELETE FROM CepCacheEntry e WHERE e.fetchedAt < :limit")
+    int deleteExpired(@Param("limit") LocalDateTime limit);
+}
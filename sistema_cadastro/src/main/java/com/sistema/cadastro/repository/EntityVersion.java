@@ -0,0 +1,9 @@
+﻿package com.sistema.cadastro.repository;
+
+import java.time.LocalDateTime;
+
+// Identidade e Ãºltima alteraÃ§Ã£o de uma linha, sem as demais colunas: base das validaÃ§Ãµes de GET condicional
+public interface EntityVersion {
+    Long getId();
+    LocalDateTime getUpdatedAt();
+}
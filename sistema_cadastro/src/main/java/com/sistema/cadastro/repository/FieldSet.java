@@ -0,0 +1,101 @@
+﻿package com.sistema.cadastro.repository;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Campos pedidos em ?fields=: definem as colunas do SELECT e as chaves do JSON, sem instanciar a entidade
+public final class FieldSet {
+
+    private final Map<String, String> allowed;
+    private final Map<String, String> columns;
+
+    private FieldSet(Map<String, String> allowed, Map<String, String> columns) {
+        this.allowed = allowed;
+        this.columns = columns;
+    }
+
+    // Propriedades da entidade aceitas em ?fields=, com a coluna derivada do nome (createdAt -> created_at)
+    public static Map<String, String> allowed(String... properties) {
+        Map<String, String> allowed = new LinkedHashMap<>();
+        for (String property : properties) {
+            allowed.put(property, property.replaceAll("([A-Z])", "_$1").toLowerCase());
+        }
+        return Collections.unmodifiableMap(allowed);
+    }
+
+    public static FieldSet parse(String fields, Map<String, String> allowed) {
+        Set<String> requested = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String property = field.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            if (!allowed.containsKey(property)) {
+                throw new IllegalArgumentException("Campo nÃ£o permitido em fields: " + property
+                        + ". Campos aceitos: " + String.join(", ", allowed.keySet()));
+            }
+            requested.add(property);
+        }
+        if (requested.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um campo em fields");
+        }
+        return new FieldSet(allowed, columns(allowed, requested));
+    }
+
+    // CÃ³pia com campos extras que o servidor precisa (ex.: posiÃ§Ã£o do cursor) mesmo sem o cliente pedir
+    public FieldSet with(String... properties) {
+        Set<String> extended = new HashSet<>(columns.keySet());
+        extended.addAll(List.of(properties));
+        return new FieldSet(allowed, columns(allowed, extended));
+    }
+
+    // Colunas sempre na ordem da lista de permitidos: qualquer permutaÃ§Ã£o de ?fields= gera o mesmo SELECT
+    private static Map<String, String> columns(Map<String, String> allowed, Set<String> properties) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        allowed.forEach((property, column) -> {
+            if (properties.contains(property)) {
+                columns.put(property, column);
+            }
+        });
+        return columns;
+    }
+
+    public Set<String> properties() {
+        return columns.keySet();
+    }
+
+    public String select(String alias) {
+        return columns.values().stream()
+                .map(column -> alias + "." + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    Map<String, Object> row(Object result) {
+        Object[] values = result instanceof Object[] array ? array : new Object[]{result};
+        Map<String, Object> row = new LinkedHashMap<>();
+        int i = 0;
+        for (String property : columns.keySet()) {
+            Object value = values[i++];
+            // Mesmo formato de data que a entidade serializa (LocalDateTime)
+            row.put(property, value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value);
+        }
+        return row;
+    }
+
+    // Remove da linha os campos acrescentados por with() que o cliente nÃ£o pediu
+    public void retain(Map<String, Object> row) {
+        row.keySet().retainAll(columns.keySet());
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", columns.keySet());
+    }
+
+}
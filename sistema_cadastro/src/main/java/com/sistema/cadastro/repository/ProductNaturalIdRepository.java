@@ -0,0 +1,10 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.Product;
+
+import java.util.Optional;
+
+public interface ProductNaturalIdRepository {
+
+    Optional<Product> findBySku(String sku);
+}
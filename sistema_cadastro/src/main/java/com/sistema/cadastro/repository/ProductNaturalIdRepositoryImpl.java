@@ -0,0 +1,20 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.Product;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ProductNaturalIdRepositoryImpl implements ProductNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    // SKU -> id pelo cache de natural id e id -> produto pelo cache da entidade; o banco sÃ³ Ã© consultado na falta
+    @Override
+    public Optional<Product> findBySku(String sku) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Product.class).loadOptional(sku);
+    }
+}
@@ -8,20 +8,26 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductSearchRepository, ProductNaturalIdRepository,
+        ProductStockRepository {
 
     boolean existsBySku(String sku);
 
-    Optional<Product> findBySku(String sku);
-
     @Query(value = "SELECT * FROM products p WHERE p.sku = :sku AND p.id <> :id", nativeQuery = true)
     Optional<Product> findBySkuAndIdNot(@Param("sku") String sku, @Param("id") Long id);
 
+    // SÃ³ id e updated_at: GET condicional respondido com 304 sem carregar nem serializar o produto
+    @Query("SELECT p.id AS id, p.updatedAt AS updatedAt FROM Product p WHERE p.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT p.id AS id, p.updatedAt AS updatedAt FROM Product p WHERE p.sku = :sku")
+    Optional<EntityVersion> findVersionBySku(@Param("sku") String sku);
+
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
     Page<Product> findByCategoryContainingIgnoreCase(String category, Pageable pageable);
@@ -34,37 +40,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Page<Product> findByIsActiveFalse(Pageable pageable);
 
-    @Query(value = "SELECT * FROM products p WHERE " +
-           "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:sku IS NULL OR LOWER(p.sku) LIKE LOWER(CONCAT('%', :sku, '%'))) AND " +
-           "(:category IS NULL OR LOWER(p.category) LIKE LOWER(CONCAT('%', :category, '%'))) AND " +
-           "(:brand IS NULL OR LOWER(p.brand) LIKE LOWER(CONCAT('%', :brand, '%'))) AND " +
-           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-           "(:minStock IS NULL OR p.stock >= :minStock) AND " +
-           "(:maxStock IS NULL OR p.stock <= :maxStock) AND " +
-           "(:isActive IS NULL OR p.is_active = :isActive)",
-           countQuery = "SELECT COUNT(*) FROM products p WHERE " +
-           "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:sku IS NULL OR LOWER(p.sku) LIKE LOWER(CONCAT('%', :sku, '%'))) AND " +
-           "(:category IS NULL OR LOWER(p.category) LIKE LOWER(CONCAT('%', :category, '%'))) AND " +
-           "(:brand IS NULL OR LOWER(p.brand) LIKE LOWER(CONCAT('%', :brand, '%'))) AND " +
-           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-           "(:minStock IS NULL OR p.stock >= :minStock) AND " +
-           "(:maxStock IS NULL OR p.stock <= :maxStock) AND " +
-           "(:isActive IS NULL OR p.is_active = :isActive)",
+    // PaginaÃ§Ã£o por faixa (keyset) em (created_at, id): custo constante por pÃ¡gina e nenhum COUNT
+    @Query(value = "SELECT * FROM products p WHERE (p.created_at, p.id) > (:afterCreatedAt, :afterId) " +
+           "ORDER BY p.created_at, p.id LIMIT :limit",
+           nativeQuery = true)
+    List<Product> findPageAfter(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                @Param("afterId") long afterId,
+                                @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM products p WHERE p.is_active = TRUE AND (p.created_at, p.id) > (:afterCreatedAt, :afterId) " +
+           "ORDER BY p.created_at, p.id LIMIT :limit",
            nativeQuery = true)
-    Page<Product> findByFilters(@Param("name") String name,
-                               @Param("sku") String sku,
-                               @Param("category") String category,
-                               @Param("brand") String brand,
-                               @Param("minPrice") BigDecimal minPrice,
-                               @Param("maxPrice") BigDecimal maxPrice,
-                               @Param("minStock") Integer minStock,
-                               @Param("maxStock") Integer maxStock,
-                               @Param("isActive") Boolean isActive,
-                               Pageable pageable);
+    List<Product> findActivePageAfter(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                      @Param("afterId") long afterId,
+                                      @Param("limit") int limit);
 
     @Query(value = "SELECT * FROM products p WHERE p.stock <= :lowStockThreshold AND p.is_active = TRUE", nativeQuery = true)
     List<Product> findLowStockProducts(@Param("lowStockThreshold") Integer lowStockThreshold);
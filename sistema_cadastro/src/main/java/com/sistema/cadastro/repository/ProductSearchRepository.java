@@ -0,0 +1,36 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ProductSearchRepository {
+
+    Page<Product> findByFilters(String name, String sku, String category, String brand,
+                                BigDecimal minPrice, BigDecimal maxPrice,
+                                Integer minStock, Integer maxStock,
+                                Boolean isActive, Pageable pageable);
+
+    List<Product> findByFiltersAfter(String name, String sku, String category, String brand,
+                                     BigDecimal minPrice, BigDecimal maxPrice,
+                                     Integer minStock, Integer maxStock,
+                                     Boolean isActive, LocalDateTime afterCreatedAt, long afterId, int limit);
+
+    Optional<Map<String, Object>> findFieldsById(Long id, FieldSet fields);
+
+    Page<Map<String, Object>> findFieldsByFilters(String name, String sku, String category, String brand,
+                                                  BigDecimal minPrice, BigDecimal maxPrice,
+                                                  Integer minStock, Integer maxStock,
+                                                  Boolean isActive, FieldSet fields, Pageable pageable);
+
+    List<Map<String, Object>> findFieldsByFiltersAfter(String name, String sku, String category, String brand,
+                                                       BigDecimal minPrice, BigDecimal maxPrice,
+                                                       Integer minStock, Integer maxStock, Boolean isActive,
+                                                       FieldSet fields, LocalDateTime afterCreatedAt, long afterId, int limit);
+}
@@ -0,0 +1,93 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.Product;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "id",
+            "name", "name",
+            "sku", "sku",
+            "price", "price",
+            "stock", "stock",
+            "category", "category",
+            "brand", "brand",
+            "createdAt", "created_at");
+
+    private static final Map<String, String> FIELDS = FieldSet.allowed("id", "name", "description", "sku", "price",
+            "stock", "weight", "category", "brand", "imageUrl", "isActive", "createdAt", "updatedAt");
+
+    private final EntityManager entityManager;
+
+    public static SearchQuery filters(String name, String sku, String category, String brand,
+                                      BigDecimal minPrice, BigDecimal maxPrice,
+                                      Integer minStock, Integer maxStock, Boolean isActive) {
+        return SearchQuery.from("products", "p", SORTABLE)
+                .contains("name", name)
+                .contains("sku", sku)
+                .contains("category", category)
+                .contains("brand", brand)
+                .atLeast("price", "minPrice", minPrice)
+                .atMost("price", "maxPrice", maxPrice)
+                .atLeast("stock", "minStock", minStock)
+                .atMost("stock", "maxStock", maxStock)
+                .equalTo("is_active", isActive);
+    }
+
+    public static FieldSet fieldSet(String fields) {
+        return FieldSet.parse(fields, FIELDS);
+    }
+
+    @Override
+    public Page<Product> findByFilters(String name, String sku, String category, String brand,
+                                       BigDecimal minPrice, BigDecimal maxPrice,
+                                       Integer minStock, Integer maxStock,
+                                       Boolean isActive, Pageable pageable) {
+        return filters(name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive)
+                .page(entityManager, Product.class, pageable);
+    }
+
+    @Override
+    public List<Product> findByFiltersAfter(String name, String sku, String category, String brand,
+                                            BigDecimal minPrice, BigDecimal maxPrice,
+                                            Integer minStock, Integer maxStock,
+                                            Boolean isActive, LocalDateTime afterCreatedAt, long afterId, int limit) {
+        return filters(name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive)
+                .keyset(entityManager, Product.class, afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, FieldSet fields) {
+        return SearchQuery.from("products", "p", SORTABLE).uniqueKey("id", id)
+                .list(entityManager, fields).stream().findFirst();
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFieldsByFilters(String name, String sku, String category, String brand,
+                                                         BigDecimal minPrice, BigDecimal maxPrice,
+                                                         Integer minStock, Integer maxStock,
+                                                         Boolean isActive, FieldSet fields, Pageable pageable) {
+        return filters(name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive)
+                .page(entityManager, fields, pageable);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByFiltersAfter(String name, String sku, String category, String brand,
+                                                              BigDecimal minPrice, BigDecimal maxPrice,
+                                                              Integer minStock, Integer maxStock, Boolean isActive,
+                                                              FieldSet fields, LocalDateTime afterCreatedAt, long afterId, int limit) {
+        return filters(name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive)
+                .keyset(entityManager, fields, afterCreatedAt, afterId, limit);
+    }
+}
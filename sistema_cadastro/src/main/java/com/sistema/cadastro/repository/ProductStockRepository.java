@@ -0,0 +1,12 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.Product;
+
+import java.util.Optional;
+
+public interface ProductStockRepository {
+
+    Optional<Product> adjustStock(Long id, int delta);
+
+    Optional<Integer> findStockById(Long id);
+}
@@ -0,0 +1,60 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.Product;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    // A condiÃ§Ã£o no WHERE substitui o "lÃª, confere e salva": duas baixas concorrentes nunca passam do disponÃ­vel e
+    // o lock da linha dura sÃ³ o prÃ³prio UPDATE. updated_at vem da aplicaÃ§Ã£o, no mesmo fuso da auditoria
+    private static final String ADJUST_STOCK_SQL = "UPDATE products SET stock = stock + :delta, updated_at = :updatedAt " +
+            "WHERE id = :id AND stock + :delta >= 0 RETURNING *";
+
+    private final EntityManager entityManager;
+
+    // Vazio quando o produto nÃ£o existe ou o estoque ficaria negativo
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Product> adjustStock(Long id, int delta) {
+        List<Product> updated = entityManager.createNativeQuery(ADJUST_STOCK_SQL, Product.class)
+                .setParameter("delta", delta)
+                .setParameter("updatedAt", LocalDateTime.now())
+                .setParameter("id", id)
+                .setHint(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS)
+                .getResultList();
+        evictFromCache(id);
+        return updated.stream().findFirst();
+    }
+
+    @Override
+    public Optional<Integer> findStockById(Long id) {
+        return entityManager.createQuery("SELECT p.stock FROM Product p WHERE p.id = :id", Integer.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    // O UPDATE nativo nÃ£o passa pelo cache de segundo nÃ­vel: a entrada do produto Ã© descartada agora e de novo ao
+    // fim da transaÃ§Ã£o, para que uma leitura concorrente nÃ£o deixe o estoque anterior em cache
+    private void evictFromCache(Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,267 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Monta o SQL nativo apenas com os filtros informados, no lugar de "(:x IS NULL OR ...)". Cada combinaÃ§Ã£o de
+// filtros (formato) gera sempre o mesmo texto, guardado em cache: o driver do PostgreSQL reaproveita o statement
+// preparado por formato e o plano passa a usar os Ã­ndices dos filtros realmente presentes.
+public final class SearchQuery {
+
+    public enum CountStrategy {
+        // Filtro de igualdade em coluna Ãºnica: no mÃ¡ximo uma linha, o total sai do prÃ³prio conteÃºdo
+        NONE,
+        // Sem filtros: estimativa do pg_class em tabelas grandes, COUNT exato nas pequenas
+        ESTIMATED,
+        EXACT
+    }
+
+    // ?sort= e ?fields= vÃªm do cliente: o cache Ã© limitado para que variaÃ§Ãµes sem fim nÃ£o cresÃ§am o heap;
+    // formatos raros perdem a entrada e apenas remontam o texto
+    private static final int MAX_CACHED_SHAPES = 1_000;
+
+    private static final Cache<String, String> SQL_BY_SHAPE = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_SHAPES)
+            .build();
+
+    // Abaixo disso o COUNT(*) Ã© barato e a estimativa nÃ£o compensa a imprecisÃ£o
+    private static final long ESTIMATE_THRESHOLD = 100_000;
+
+    private final String table;
+    private final String alias;
+    private final Map<String, String> sortable;
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final StringBuilder shape = new StringBuilder();
+    private boolean uniqueKey;
+
+    private SearchQuery(String table, String alias, Map<String, String> sortable) {
+        this.table = table;
+        this.alias = alias;
+        this.sortable = sortable;
+        shape.append(table);
+    }
+
+    // sortable: propriedade aceita em ?sort= -> coluna; qualquer outra Ã© rejeitada
+    public static SearchQuery from(String table, String alias, Map<String, String> sortable) {
+        return new SearchQuery(table, alias, sortable);
+    }
+
+    // LOWER(coluna) LIKE '%termo%', no formato atendido pelos Ã­ndices de trigramas do schema.sql
+    public SearchQuery contains(String column, Object value) {
+        return add(column, "~", value, column(column) + " LIKE '%' || LOWER(:" + column + ") || '%'");
+    }
+
+    public SearchQuery equalTo(String column, Object value) {
+        return add(column, "=", value, alias + "." + column + " = :" + column);
+    }
+
+    public SearchQuery uniqueKey(String column, Object value) {
+        if (value != null) {
+            uniqueKey = true;
+        }
+        return equalTo(column, value);
+    }
+
+    public SearchQuery atLeast(String column, String parameter, Object value) {
+        return add(parameter, ">", value, alias + "." + column + " >= :" + parameter);
+    }
+
+    public SearchQuery atMost(String column, String parameter, Object value) {
+        return add(parameter, "<", value, alias + "." + column + " <= :" + parameter);
+    }
+
+    public CountStrategy countStrategy() {
+        if (uniqueKey) {
+            return CountStrategy.NONE;
+        }
+        return predicates.isEmpty() ? CountStrategy.ESTIMATED : CountStrategy.EXACT;
+    }
+
+    public String shape() {
+        return shape.toString();
+    }
+
+    public Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    public String pageSql(Sort sort) {
+        return pageSql("*", sort);
+    }
+
+    public String pageSql(FieldSet fields, Sort sort) {
+        return pageSql(fields.select(alias), sort);
+    }
+
+    private String pageSql(String select, Sort sort) {
+        String orderBy = orderBy(sort);
+        return SQL_BY_SHAPE.get(shape + "|page|" + select + "|" + orderBy,
+                key -> "SELECT " + select + " FROM " + table + " " + alias + where() + " ORDER BY " + orderBy
+                        + " LIMIT :limit OFFSET :offset");
+    }
+
+    public String countSql() {
+        return SQL_BY_SHAPE.get(shape + "|count",
+                key -> "SELECT COUNT(*) FROM " + table + " " + alias + where());
+    }
+
+    // Todas as linhas do filtro em ordem de id, para leitura por cursor no servidor (exportaÃ§Ã£o)
+    public String exportSql() {
+        return listSql("*");
+    }
+
+    private String listSql(String select) {
+        return SQL_BY_SHAPE.get(shape + "|list|" + select,
+                key -> "SELECT " + select + " FROM " + table + " " + alias + where() + " ORDER BY " + alias + ".id");
+    }
+
+    // PaginaÃ§Ã£o por faixa em (created_at, id), como em KeysetCursor
+    public String keysetSql() {
+        return keysetSql("*");
+    }
+
+    private String keysetSql(String select) {
+        return SQL_BY_SHAPE.get(shape + "|keyset|" + select, key -> {
+            String range = "(" + alias + ".created_at, " + alias + ".id) > (:afterCreatedAt, :afterId)";
+            String where = where();
+            return "SELECT " + select + " FROM " + table + " " + alias + (where.isEmpty() ? " WHERE " : where + " AND ") + range
+                    + " ORDER BY " + alias + ".created_at, " + alias + ".id LIMIT :limit";
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Page<T> page(EntityManager entityManager, Class<T> type, Pageable pageable) {
+        return page(entityManager, entityManager.createNativeQuery(pageSql(pageable.getSort()), type), pageable,
+                row -> (T) row);
+    }
+
+    // Apenas as colunas de fields, uma linha por Map: sem entidade gerenciada nem colunas descartadas depois
+    public Page<Map<String, Object>> page(EntityManager entityManager, FieldSet fields, Pageable pageable) {
+        return page(entityManager, entityManager.createNativeQuery(pageSql(fields, pageable.getSort())), pageable,
+                fields::row);
+    }
+
+    public List<Map<String, Object>> list(EntityManager entityManager, FieldSet fields) {
+        return rows(bind(entityManager.createNativeQuery(listSql(fields.select(alias)))), fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Page<T> page(EntityManager entityManager, Query query, Pageable pageable, Function<Object, T> mapper) {
+        bind(query);
+        if (pageable.isPaged()) {
+            query.setParameter("limit", pageable.getPageSize());
+            query.setParameter("offset", pageable.getOffset());
+        } else {
+            query.setParameter("limit", Integer.MAX_VALUE);
+            query.setParameter("offset", 0L);
+        }
+        List<T> content = ((List<Object>) query.getResultList()).stream().map(mapper).toList();
+        // PageableExecutionUtils jÃ¡ dispensa o COUNT quando a pÃ¡gina vem incompleta
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(entityManager, pageable, content.size()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> keyset(EntityManager entityManager, Class<T> type, LocalDateTime afterCreatedAt, long afterId, int limit) {
+        return bind(entityManager.createNativeQuery(keysetSql(), type))
+                .setParameter("afterCreatedAt", afterCreatedAt)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+
+    public List<Map<String, Object>> keyset(EntityManager entityManager, FieldSet fields, LocalDateTime afterCreatedAt,
+                                            long afterId, int limit) {
+        return rows(bind(entityManager.createNativeQuery(keysetSql(fields.select(alias))))
+                .setParameter("afterCreatedAt", afterCreatedAt)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit), fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Query query, FieldSet fields) {
+        return ((List<Object>) query.getResultList()).stream().map(fields::row).toList();
+    }
+
+    private long count(EntityManager entityManager, Pageable pageable, int contentSize) {
+        return switch (countStrategy()) {
+            case NONE -> (pageable.isPaged() ? pageable.getOffset() : 0) + contentSize;
+            case ESTIMATED -> {
+                // reltuples fica em -1 enquanto a tabela nunca passou por VACUUM/ANALYZE
+                long estimate = ((Number) entityManager
+                        .createNativeQuery("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST(:table AS regclass)")
+                        .setParameter("table", table)
+                        .getSingleResult()).longValue();
+                yield estimate >= ESTIMATE_THRESHOLD ? estimate : exactCount(entityManager);
+            }
+            case EXACT -> exactCount(entityManager);
+        };
+    }
+
+    private long exactCount(EntityManager entityManager) {
+        return ((Number) bind(entityManager.createNativeQuery(countSql())).getSingleResult()).longValue();
+    }
+
+    private Query bind(Query query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private SearchQuery add(String parameter, String operator, Object value, String predicate) {
+        if (value == null) {
+            return this;
+        }
+        predicates.add(predicate);
+        parameters.put(parameter, value);
+        shape.append('|').append(parameter).append(operator);
+        return this;
+    }
+
+    private String column(String column) {
+        return "LOWER(" + alias + "." + column + ")";
+    }
+
+    private String where() {
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    // Coluna repetida e qualquer critÃ©rio depois de id nÃ£o mudam a ordem: ficam fora do SQL e da chave do cache
+    private String orderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder();
+        Set<String> seen = new HashSet<>();
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            String column = sortable.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("OrdenaÃ§Ã£o nÃ£o permitida: " + order.getProperty());
+            }
+            if (hasId || !seen.add(column)) {
+                continue;
+            }
+            hasId = column.equals("id");
+            orderBy.append(alias).append('.').append(column).append(order.isAscending() ? " ASC" : " DESC").append(", ");
+        }
+        // id como desempate deixa a ordem estÃ¡vel entre pÃ¡ginas
+        if (!hasId) {
+            orderBy.append(alias).append(".id");
+        } else {
+            orderBy.setLength(orderBy.length() - 2);
+        }
+        return orderBy.toString();
+    }
+}
@@ -0,0 +1,10 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.User;
+
+import java.util.Optional;
+
+public interface UserNaturalIdRepository {
+
+    Optional<User> findByCpf(String cpf);
+}
@@ -0,0 +1,20 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    // CPF -> id pelo cache de natural id e id -> usuÃ¡rio pelo cache da entidade; o banco sÃ³ Ã© consultado na falta
+    @Override
+    public Optional<User> findByCpf(String cpf) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(cpf);
+    }
+}
@@ -1,58 +1,60 @@
 ﻿package com.sistema.cadastro.repository;
 
 import com.sistema.cadastro.entity.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    boolean existsByCpf(String cpf);
-
-    boolean existsByEmail(String email);
-
-    Optional<User> findByCpf(String cpf);
+public interface UserRepository extends JpaRepository<User, Long>, UserSearchRepository, UserNaturalIdRepository {
 
+    // Email pode mudar e por isso nÃ£o Ã© natural id: o resultado fica no cache de consultas, invalidado a cada escrita em users
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
-    @Query(value = "SELECT * FROM users u WHERE u.cpf = :cpf AND u.id <> :id", nativeQuery = true)
-    Optional<User> findByCpfAndIdNot(@Param("cpf") String cpf, @Param("id") Long id);
-
-    @Query(value = "SELECT * FROM users u WHERE u.email = :email AND u.id <> :id", nativeQuery = true)
-    Optional<User> findByEmailAndIdNot(@Param("email") String email, @Param("id") Long id);
-
-    @Query(value = "SELECT * FROM users u WHERE " +
-           "(:name IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:email IS NULL OR LOWER(u.email) LIKE LOWER(CONCAT('%', :email, '%'))) AND " +
-           "(:cpf IS NULL OR u.cpf = :cpf) AND " +
-           "(:city IS NULL OR LOWER(u.city) LIKE LOWER(CONCAT('%', :city, '%'))) AND " +
-           "(:state IS NULL OR u.state = :state)",
-           countQuery = "SELECT COUNT(*) FROM users u WHERE " +
-           "(:name IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:email IS NULL OR LOWER(u.email) LIKE LOWER(CONCAT('%', :email, '%'))) AND " +
-           "(:cpf IS NULL OR u.cpf = :cpf) AND " +
-           "(:city IS NULL OR LOWER(u.city) LIKE LOWER(CONCAT('%', :city, '%'))) AND " +
-           "(:state IS NULL OR u.state = :state)",
-           nativeQuery = true)
-    Page<User> findByFilters(@Param("name") String name,
-                            @Param("email") String email,
-                            @Param("cpf") String cpf,
-                            @Param("city") String city,
-                            @Param("state") String state,
-                            Pageable pageable);
+    // SÃ³ id e updated_at: GET condicional respondido com 304 sem carregar nem serializar o usuÃ¡rio
+    @Query("SELECT u.id AS id, u.updatedAt AS updatedAt FROM User u WHERE u.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
 
-    @Query(value = "SELECT COUNT(*) FROM users u WHERE u.created_at >= CURRENT_DATE()", nativeQuery = true)
-    long countUsersCreatedToday();
-
-    @Query(value = "SELECT COUNT(*) FROM users u WHERE u.created_at >= NOW() - INTERVAL '7 days'", nativeQuery = true)
-    long countUsersCreatedLastWeek();
+    // Uma Ãºnica ida ao banco informa quais chaves Ãºnicas jÃ¡ pertencem a outro usuÃ¡rio; no cadastro excludeId Ã© 0
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM users u WHERE u.cpf = :cpf AND u.id <> :excludeId) AS \"cpfTaken\", " +
+           "EXISTS (SELECT 1 FROM users u WHERE u.email = :email AND u.id <> :excludeId) AS \"emailTaken\"",
+           nativeQuery = true)
+    UniqueKeyConflicts findUniqueKeyConflicts(@Param("cpf") String cpf,
+                                              @Param("email") String email,
+                                              @Param("excludeId") long excludeId);
 
-    @Query(value = "SELECT COUNT(*) FROM users u WHERE u.created_at >= NOW() - INTERVAL '30 days'", nativeQuery = true)
-    long countUsersCreatedLastMonth();
+    // PaginaÃ§Ã£o por faixa (keyset) em (created_at, id): custo constante por pÃ¡gina e nenhum COUNT
+    @Query(value = "SELECT * FROM users u WHERE (u.created_at, u.id) > (:afterCreatedAt, :afterId) " +
+           "ORDER BY u.created_at, u.id LIMIT :limit",
+           nativeQuery = true)
+    List<User> findPageAfter(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                             @Param("afterId") long afterId,
+                             @Param("limit") int limit);
+
+    @Query(value = "SELECT DISTINCT u.cep FROM users u", nativeQuery = true)
+    List<String> findDistinctCeps();
+
+    @Query("SELECT u.cpf AS cpf, u.email AS email FROM User u WHERE u.cpf IN :cpfs OR u.email IN :emails")
+    List<ExistingKeys> findExistingKeys(@Param("cpfs") Collection<String> cpfs,
+                                        @Param("emails") Collection<String> emails);
+
+    interface UniqueKeyConflicts {
+        boolean isCpfTaken();
+        boolean isEmailTaken();
+    }
+
+    interface ExistingKeys {
+        String getCpf();
+        String getEmail();
+    }
 }
@@ -0,0 +1,26 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserSearchRepository {
+
+    Page<User> findByFilters(String name, String email, String cpf, String city, String state, Pageable pageable);
+
+    List<User> findByFiltersAfter(String name, String email, String cpf, String city, String state,
+                                  LocalDateTime afterCreatedAt, long afterId, int limit);
+
+    Optional<Map<String, Object>> findFieldsById(Long id, FieldSet fields);
+
+    Page<Map<String, Object>> findFieldsByFilters(String name, String email, String cpf, String city, String state,
+                                                  FieldSet fields, Pageable pageable);
+
+    List<Map<String, Object>> findFieldsByFiltersAfter(String name, String email, String cpf, String city, String state,
+                                                       FieldSet fields, LocalDateTime afterCreatedAt, long afterId, int limit);
+}
@@ -0,0 +1,71 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "id",
+            "name", "name",
+            "email", "email",
+            "city", "city",
+            "state", "state",
+            "createdAt", "created_at");
+
+    private static final Map<String, String> FIELDS = FieldSet.allowed("id", "name", "email", "cpf", "cep", "address",
+            "city", "state", "neighborhood", "complement", "number", "addressStatus", "createdAt", "updatedAt");
+
+    private final EntityManager entityManager;
+
+    public static SearchQuery filters(String name, String email, String cpf, String city, String state) {
+        return SearchQuery.from("users", "u", SORTABLE)
+                .contains("name", name)
+                .contains("email", email)
+                .uniqueKey("cpf", cpf)
+                .contains("city", city)
+                .equalTo("state", state);
+    }
+
+    public static FieldSet fieldSet(String fields) {
+        return FieldSet.parse(fields, FIELDS);
+    }
+
+    @Override
+    public Page<User> findByFilters(String name, String email, String cpf, String city, String state, Pageable pageable) {
+        return filters(name, email, cpf, city, state).page(entityManager, User.class, pageable);
+    }
+
+    @Override
+    public List<User> findByFiltersAfter(String name, String email, String cpf, String city, String state,
+                                         LocalDateTime afterCreatedAt, long afterId, int limit) {
+        return filters(name, email, cpf, city, state).keyset(entityManager, User.class, afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, FieldSet fields) {
+        return SearchQuery.from("users", "u", SORTABLE).uniqueKey("id", id)
+                .list(entityManager, fields).stream().findFirst();
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFieldsByFilters(String name, String email, String cpf, String city, String state,
+                                                         FieldSet fields, Pageable pageable) {
+        return filters(name, email, cpf, city, state).page(entityManager, fields, pageable);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByFiltersAfter(String name, String email, String cpf, String city, String state,
+                                                              FieldSet fields, LocalDateTime afterCreatedAt, long afterId, int limit) {
+        return filters(name, email, cpf, city, state).keyset(entityManager, fields, afterCreatedAt, afterId, limit);
+    }
+}
@@ -0,0 +1,194 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.client.CepClient;
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.entity.AddressEnrichmentOutbox;
+import com.sistema.cadastro.entity.AddressStatus;
+import com.sistema.cadastro.entity.User;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.repository.AddressEnrichmentOutboxRepository;
+import com.sistema.cadastro.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@RequiredArgsConstructor
+public class AddressEnrichmentService implements MeterBinder {
+
+    private final AddressEnrichmentOutboxRepository outboxRepository;
+    private final UserRepository userRepository;
+    private final CepService cepService;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("enrichmentExecutor")
+    private final Executor enrichmentExecutor;
+    private static final Logger log = LoggerFactory.getLogger(AddressEnrichmentService.class);
+
+    @Value("${app.users.address-enrichment.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.users.address-enrichment.retry-delay:PT30S}")
+    private Duration retryDelay;
+
+    @Value("${app.users.address-enrichment.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${app.users.address-enrichment.batch-size:100}")
+    private int batchSize;
+
+    private final LongAdder enriched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    // Deve ser chamado dentro da transaÃ§Ã£o que gravou o usuÃ¡rio: o registro no outbox Ã© confirmado junto
+    // com ele, e o processamento sÃ³ Ã© disparado apÃ³s o commit
+    public void enqueue(User user) {
+        AddressEnrichmentOutbox entry = outboxRepository.save(AddressEnrichmentOutbox.builder()
+                .userId(user.getId())
+                .cep(user.getCep())
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now().plus(lease))
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(entry.getId());
+                }
+            });
+        } else {
+            dispatch(entry.getId());
+        }
+    }
+
+    void dispatch(Long outboxId) {
+        try {
+            enrichmentExecutor.execute(() -> process(outboxId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de enriquecimento de endereÃ§o cheia; outbox {} serÃ¡ retomado pelo agendador", outboxId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.address-enrichment.poll-interval:PT30S}",
+            initialDelayString = "${app.users.address-enrichment.poll-interval:PT30S}")
+    public void pollPending() {
+        List<Long> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<AddressEnrichmentOutbox> due = outboxRepository.lockDue(now, batchSize);
+            due.forEach(entry -> entry.setNextAttemptAt(now.plus(lease)));
+            outboxRepository.saveAll(due);
+            return due.stream().map(AddressEnrichmentOutbox::getId).toList();
+        });
+
+        if (claimed != null && !claimed.isEmpty()) {
+            log.info("Retomando {} enriquecimentos de endereÃ§o pendentes", claimed.size());
+            claimed.forEach(this::dispatch);
+        }
+    }
+
+    void process(Long outboxId) {
+        Optional<AddressEnrichmentOutbox> found = outboxRepository.findById(outboxId);
+        if (found.isEmpty()) {
+            return;
+        }
+        AddressEnrichmentOutbox entry = found.get();
+
+        // A consulta ao CEP acontece fora de qualquer transaÃ§Ã£o: nenhuma conexÃ£o JDBC fica presa na chamada HTTP
+        CepDataDTO cepData;
+        try {
+            cepData = cepService.validateAndFetchCep(entry.getCep());
+            if (cepData.isDegraded()) {
+                throw new BusinessException("ViaCEP indisponÃ­vel; endereÃ§o resolvido apenas por faixa",
+                        HttpStatus.SERVICE_UNAVAILABLE, CepClient.SERVICE_UNAVAILABLE);
+            }
+        } catch (BusinessException e) {
+            if (CepClient.CEP_NOT_FOUND.equals(e.getErrorCode()) || entry.getAttempts() + 1 >= maxAttempts) {
+                transactionTemplate.executeWithoutResult(status -> markFailed(entry, e.getMessage()));
+            } else {
+                transactionTemplate.executeWithoutResult(status -> reschedule(entry, e.getMessage()));
+            }
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> complete(entry, cepData));
+    }
+
+    private void complete(AddressEnrichmentOutbox entry, CepDataDTO cepData) {
+        userRepository.findById(entry.getUserId()).ifPresent(user -> {
+            if (!entry.getCep().equals(user.getCep())) {
+                return;
+            }
+            user.setAddress(cepData.getLogradouro());
+            user.setCity(cepData.getLocalidade());
+            user.setState(cepData.getUf());
+            user.setNeighborhood(cepData.getBairro());
+            user.setComplement(cepData.getComplemento());
+            user.setAddressStatus(AddressStatus.ENRICHED);
+            userRepository.save(user);
+        });
+        outboxRepository.deleteById(entry.getId());
+        enriched.increment();
+        log.info("EndereÃ§o do usuÃ¡rio {} enriquecido a partir do CEP {}", entry.getUserId(), entry.getCep());
+    }
+
+    private void markFailed(AddressEnrichmentOutbox entry, String error) {
+        userRepository.findById(entry.getUserId()).ifPresent(user -> {
+            if (entry.getCep().equals(user.getCep())) {
+                user.setAddressStatus(AddressStatus.FAILED);
+                userRepository.save(user);
+            }
+        });
+        outboxRepository.deleteById(entry.getId());
+        failed.increment();
+        log.warn("Falha definitiva ao enriquecer endereÃ§o do usuÃ¡rio {} (CEP {}): {}",
+                entry.getUserId(), entry.getCep(), error);
+    }
+
+    private void reschedule(AddressEnrichmentOutbox entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        entry.setNextAttemptAt(LocalDateTime.now().plus(retryDelay.multipliedBy(1L << Math.min(attempts - 1, 6))));
+        outboxRepository.save(entry);
+        retried.increment();
+        log.warn("Enriquecimento do endereÃ§o do usuÃ¡rio {} reagendado para {} (tentativa {}): {}",
+                entry.getUserId(), entry.getNextAttemptAt(), attempts, error);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("users.address.enrichment", enriched, LongAdder::sum)
+                .tag("result", "enriched")
+                .description("EndereÃ§os de usuÃ¡rios enriquecidos em segundo plano")
+                .register(registry);
+        FunctionCounter.builder("users.address.enrichment", failed, LongAdder::sum)
+                .tag("result", "failed")
+                .description("Enriquecimentos de endereÃ§o encerrados sem sucesso")
+                .register(registry);
+        FunctionCounter.builder("users.address.enrichment", retried, LongAdder::sum)
+                .tag("result", "retried")
+                .description("Enriquecimentos de endereÃ§o reagendados")
+                .register(registry);
+    }
+}
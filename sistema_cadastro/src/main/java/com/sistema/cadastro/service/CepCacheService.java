@@ -0,0 +1,208 @@
+﻿package com.sistema.cadastro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.entity.CepCacheEntry;
+import com.sistema.cadastro.repository.CepCacheRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@RequiredArgsConstructor
+public class CepCacheService implements MeterBinder {
+
+    static final String LOCAL_CACHE_NAME = "cepData.local";
+    static final String PERSISTENT_CACHE_NAME = "cepData.persistent";
+    static final String NEGATIVE_CACHE_NAME = "cepData.negative";
+
+    private final CepCacheRepository cepCacheRepository;
+    private static final Logger log = LoggerFactory.getLogger(CepCacheService.class);
+
+    @Value("${app.cep.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${app.cep.cache.local.ttl:PT6H}")
+    private Duration localTtl;
+
+    @Value("${app.cep.cache.persistent.enabled:true}")
+    private boolean persistentEnabled;
+
+    @Value("${app.cep.cache.persistent.ttl:P30D}")
+    private Duration persistentTtl;
+
+    @Value("${app.cep.cache.negative.max-size:100000}")
+    private long negativeMaxSize;
+
+    @Value("${app.cep.cache.negative.ttl:PT10M}")
+    private Duration negativeTtl;
+
+    private Cache<String, CepDataDTO> localCache;
+    private Cache<String, Boolean> negativeCache;
+
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder persistentMisses = new LongAdder();
+    private final LongAdder persistentEvictions = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        negativeCache = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+    }
+
+    // SÃ³ o cache em memÃ³ria: nunca bloqueia, pode ser chamado de qualquer thread
+    public Optional<CepDataDTO> getLocal(String cep) {
+        return Optional.ofNullable(localCache.getIfPresent(cep));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<CepDataDTO> get(String cep) {
+        CepDataDTO local = localCache.getIfPresent(cep);
+        if (local != null) {
+            return Optional.of(local);
+        }
+
+        if (!persistentEnabled) {
+            return Optional.empty();
+        }
+
+        try {
+            Optional<CepCacheEntry> entry = cepCacheRepository.findById(cep)
+                    .filter(e -> e.getFetchedAt() != null && e.getFetchedAt().isAfter(LocalDateTime.now().minus(persistentTtl)));
+
+            if (entry.isEmpty()) {
+                persistentMisses.increment();
+                return Optional.empty();
+            }
+
+            persistentHits.increment();
+            CepDataDTO cepData = toDto(entry.get());
+            localCache.put(cep, cepData);
+            return Optional.of(cepData);
+        } catch (DataAccessException e) {
+            log.warn("Falha ao consultar cache persistente do CEP {}: {}", cep, e.getMessage());
+            persistentMisses.increment();
+            return Optional.empty();
+        }
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void put(String cep, CepDataDTO cepData) {
+        localCache.put(cep, cepData);
+
+        if (!persistentEnabled) {
+            return;
+        }
+
+        try {
+            cepCacheRepository.save(toEntry(cep, cepData));
+        } catch (DataAccessException e) {
+            log.warn("Falha ao gravar CEP {} no cache persistente: {}", cep, e.getMessage());
+        }
+    }
+
+    public void evict(String cep) {
+        localCache.invalidate(cep);
+        negativeCache.invalidate(cep);
+    }
+
+    // CEPs que o ViaCEP respondeu como inexistentes; TTL curto para nÃ£o esconder CEPs recÃ©m-criados
+    public boolean isKnownInvalid(String cep) {
+        return negativeCache.getIfPresent(cep) != null;
+    }
+
+    public void putInvalid(String cep) {
+        negativeCache.put(cep, Boolean.TRUE);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cep.cache.persistent.purge-interval:PT6H}",
+            initialDelayString = "${app.cep.cache.persistent.purge-interval:PT6H}")
+    @Transactional
+    public void purgeExpired() {
+        if (!persistentEnabled) {
+            return;
+        }
+
+        int removed = cepCacheRepository.deleteExpired(LocalDateTime.now().minus(persistentTtl));
+        persistentEvictions.add(removed);
+        log.info("Cache persistente de CEP: {} registros expirados removidos", removed);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, localCache, LOCAL_CACHE_NAME);
+        CaffeineCacheMetrics.monitor(registry, negativeCache, NEGATIVE_CACHE_NAME);
+
+        FunctionCounter.builder("cache.gets", persistentHits, LongAdder::sum)
+                .tag("cache", PERSISTENT_CACHE_NAME)
+                .tag("result", "hit")
+                .description("Consultas ao cache persistente de CEP encontradas")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", persistentMisses, LongAdder::sum)
+                .tag("cache", PERSISTENT_CACHE_NAME)
+                .tag("result", "miss")
+                .description("Consultas ao cache persistente de CEP sem registro vÃ¡lido")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", persistentEvictions, LongAdder::sum)
+                .tag("cache", PERSISTENT_CACHE_NAME)
+                .description("Registros expirados removidos do cache persistente de CEP")
+                .register(registry);
+    }
+
+    private CepDataDTO toDto(CepCacheEntry entry) {
+        return CepDataDTO.builder()
+                .cep(entry.getCep())
+                .logradouro(entry.getLogradouro())
+                .complemento(entry.getComplemento())
+                .bairro(entry.getBairro())
+                .localidade(entry.getLocalidade())
+                .uf(entry.getUf())
+                .ibge(entry.getIbge())
+                .gia(entry.getGia())
+                .ddd(entry.getDdd())
+                .siafi(entry.getSiafi())
+                .erro(false)
+                .build();
+    }
+
+    private CepCacheEntry toEntry(String cep, CepDataDTO cepData) {
+        return CepCacheEntry.builder()
+                .cep(cep)
+                .logradouro(cepData.getLogradouro())
+                .complemento(cepData.getComplemento())
+                .bairro(cepData.getBairro())
+                .localidade(cepData.getLocalidade())
+                .uf(cepData.getUf())
+                .ibge(cepData.getIbge())
+                .gia(cepData.getGia())
+                .ddd(cepData.getDdd())
+                .siafi(cepData.getSiafi())
+                .fetchedAt(LocalDateTime.now())
+                .build();
+    }
+}
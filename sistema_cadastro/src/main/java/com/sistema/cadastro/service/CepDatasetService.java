@@ -0,0 +1,47 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dataset.CepDatasetIndex;
+import com.sistema.cadastro.dto.CepDataDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@Service
+public class CepDatasetService implements MeterBinder {
+
+    @Value("${app.cep.dataset.path:}")
+    private String datasetPath;
+
+    private final CepFileSource<CepDatasetIndex> source = new CepFileSource<>("Base local de CEPs",
+            "consultas seguem para o ViaCEP", "cep.dataset", CepDatasetIndex::open, CepDatasetIndex::size,
+            index -> index.size() + " CEPs, " + index.dictionarySize() + " textos distintos");
+
+    @PostConstruct
+    void init() {
+        source.init(datasetPath);
+    }
+
+    public void load(Path path) throws IOException {
+        source.load(path);
+    }
+
+    public Optional<CepDataDTO> find(String cleanCep) {
+        return source.lookup(index -> index.find(cleanCep));
+    }
+
+    public boolean isLoaded() {
+        return source.isLoaded();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        source.bindTo(registry, "Consultas de CEP atendidas pela base local",
+                "Consultas de CEP nÃ£o encontradas na base local", "Quantidade de CEPs na base local");
+    }
+}
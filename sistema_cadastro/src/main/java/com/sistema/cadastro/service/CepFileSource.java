@@ -0,0 +1,113 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Carga, consulta e mÃ©tricas comuns Ã s fontes locais de CEP lidas de arquivo (base completa e faixas).
+// Arquivo ausente ou invÃ¡lido nunca derruba a aplicaÃ§Ã£o: a fonte fica vazia e o CepService segue para a prÃ³xima
+final class CepFileSource<T> {
+
+    @FunctionalInterface
+    interface Loader<T> {
+        T load(Path path) throws IOException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CepFileSource.class);
+
+    private final String name;
+    private final String fallback;
+    private final String metricPrefix;
+    private final Loader<T> loader;
+    private final ToIntFunction<T> size;
+    private final Function<T, String> summary;
+
+    private volatile T current;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CepFileSource(String name, String fallback, String metricPrefix, Loader<T> loader, ToIntFunction<T> size,
+                  Function<T, String> summary) {
+        this.name = name;
+        this.fallback = fallback;
+        this.metricPrefix = metricPrefix;
+        this.loader = loader;
+        this.size = size;
+        this.summary = summary;
+    }
+
+    void init(String configuredPath) {
+        if (configuredPath == null || configuredPath.isBlank()) {
+            log.info("{}: caminho nÃ£o configurado; {}", name, fallback);
+            return;
+        }
+
+        Path path = Paths.get(configuredPath);
+        if (!Files.isReadable(path)) {
+            log.warn("{}: arquivo {} nÃ£o encontrado; {}", name, path, fallback);
+            return;
+        }
+
+        try {
+            load(path);
+        } catch (IOException | RuntimeException e) {
+            log.error("{}: falha ao carregar {}; {}: {}", name, path, fallback, e.getMessage());
+        }
+    }
+
+    void load(Path path) throws IOException {
+        T loaded = loader.load(path);
+        current = loaded;
+        log.info("{}: carregado {} ({})", name, path, summary.apply(loaded));
+    }
+
+    Optional<CepDataDTO> lookup(Function<T, CepDataDTO> query) {
+        T source = current;
+        if (source == null) {
+            return Optional.empty();
+        }
+
+        CepDataDTO cepData = query.apply(source);
+        if (cepData == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(cepData);
+    }
+
+    boolean isLoaded() {
+        return current != null;
+    }
+
+    void bindTo(MeterRegistry registry, String hitDescription, String missDescription, String sizeDescription) {
+        FunctionCounter.builder(metricPrefix + ".lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description(hitDescription)
+                .register(registry);
+        FunctionCounter.builder(metricPrefix + ".lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description(missDescription)
+                .register(registry);
+        Gauge.builder(metricPrefix + ".size", this, source -> {
+                    T loaded = source.current;
+                    return loaded == null ? 0 : source.size.applyAsInt(loaded);
+                })
+                .description(sizeDescription)
+                .register(registry);
+    }
+}
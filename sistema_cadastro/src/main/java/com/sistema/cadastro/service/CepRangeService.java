@@ -0,0 +1,43 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dataset.CepRangeTable;
+import com.sistema.cadastro.dto.CepDataDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@Service
+public class CepRangeService implements MeterBinder {
+
+    @Value("${app.cep.ranges.path:}")
+    private String rangesPath;
+
+    private final CepFileSource<CepRangeTable> source = new CepFileSource<>("Faixas de CEP",
+            "modo degradado desabilitado", "cep.ranges", CepRangeTable::load, CepRangeTable::size,
+            table -> table.size() + " faixas");
+
+    @PostConstruct
+    void init() {
+        source.init(rangesPath);
+    }
+
+    public void load(Path path) throws IOException {
+        source.load(path);
+    }
+
+    public Optional<CepDataDTO> resolve(String cleanCep) {
+        return source.lookup(table -> table.resolve(cleanCep));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        source.bindTo(registry, "CEPs resolvidos por faixa em modo degradado",
+                "CEPs fora das faixas conhecidas em modo degradado", "Quantidade de faixas de CEP carregadas");
+    }
+}
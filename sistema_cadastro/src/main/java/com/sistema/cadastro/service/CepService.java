@@ -3,61 +3,162 @@
 import com.sistema.cadastro.client.CepClient;
 import com.sistema.cadastro.dto.CepDataDTO;
 import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.util.DocumentCodec;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 @RequiredArgsConstructor
-public class CepService {
+public class CepService implements MeterBinder {
 
     private final CepClient cepClient;
+    private final CepCacheService cepCacheService;
+    private final CepDatasetService cepDatasetService;
+    private final CepRangeService cepRangeService;
     private static final Logger log = LoggerFactory.getLogger(CepService.class);
 
-    @Cacheable(value = "cepData", key = "#cep", unless = "#result == null")
+    private final ConcurrentMap<String, CompletableFuture<CepDataDTO>> inFlightLookups = new ConcurrentHashMap<>();
+    private final LongAdder coalescedLookups = new LongAdder();
+
     public CepDataDTO validateAndFetchCep(String cep) {
+        return await(validateAndFetchCepAsync(cep));
+    }
+
+    public CompletableFuture<CepDataDTO> validateAndFetchCepAsync(String cep) {
         log.info("Validando e buscando dados do CEP: {}", cep);
         
         if (cep == null || cep.trim().isEmpty()) {
-            throw new BusinessException("CEP Ã© obrigatÃ³rio");
+            return CompletableFuture.failedFuture(new BusinessException("CEP Ã© obrigatÃ³rio"));
         }
 
-        String cleanCep = cep.replaceAll("\\D", "");
+        String cleanCep = DocumentCodec.digits(cep);
         
         if (cleanCep.length() != 8) {
-            throw new BusinessException("CEP deve ter 8 dÃ­gitos");
+            return CompletableFuture.failedFuture(new BusinessException("CEP deve ter 8 dÃ­gitos"));
         }
-        
-        try {
-            CepDataDTO cepData = cepClient.getCepData(cleanCep);
-            
-            if (cepData == null || cepData.getErro() != null && cepData.getErro()) {
-                throw new BusinessException("CEP nÃ£o encontrado ou invÃ¡lido");
-            }
 
-            if (cepData.getLogradouro() == null || cepData.getLogradouro().trim().isEmpty()) {
-                log.warn("CEP {} retornou sem logradouro", cleanCep);
-            }
-            
-            if (cepData.getLocalidade() == null || cepData.getLocalidade().trim().isEmpty()) {
-                throw new BusinessException("CEP retornou sem cidade");
-            }
-            
-            if (cepData.getUf() == null || cepData.getUf().trim().isEmpty()) {
-                throw new BusinessException("CEP retornou sem estado");
+        Optional<CepDataDTO> local = cepDatasetService.find(cleanCep);
+        if (local.isPresent()) {
+            log.debug("CEP {} atendido pela base local", cleanCep);
+            return CompletableFuture.completedFuture(local.get());
+        }
+
+        if (cepCacheService.isKnownInvalid(cleanCep)) {
+            log.debug("CEP {} rejeitado pelo cache negativo", cleanCep);
+            return CompletableFuture.failedFuture(notFound());
+        }
+
+        Optional<CepDataDTO> cached = cepCacheService.getLocal(cleanCep);
+        if (cached.isPresent()) {
+            log.debug("CEP {} atendido pelo cache", cleanCep);
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        CompletableFuture<CepDataDTO> lookup = new CompletableFuture<>();
+        CompletableFuture<CepDataDTO> inFlight = inFlightLookups.putIfAbsent(cleanCep, lookup);
+        if (inFlight != null) {
+            coalescedLookups.increment();
+            log.debug("CEP {} jÃ¡ estÃ¡ sendo consultado; aguardando a consulta em andamento", cleanCep);
+            return inFlight.copy();
+        }
+
+        fetchFromUpstream(cleanCep).whenComplete((cepData, error) -> {
+            inFlightLookups.remove(cleanCep, lookup);
+            if (error != null) {
+                lookup.completeExceptionally(error);
+            } else {
+                lookup.complete(cepData);
             }
-            
-            log.info("Dados do CEP {} recuperados com sucesso", cleanCep);
-            return cepData;
-            
-        } catch (BusinessException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Erro ao buscar dados do CEP {}: {}", cleanCep, e.getMessage());
-            throw new BusinessException("Erro ao buscar dados do CEP", e);
+        });
+        return lookup.copy();
+    }
+
+    // O cache persistente Ã© uma consulta JDBC: roda no boundedElastic, atrÃ¡s do single-flight, e nÃ£o na thread
+    // de quem chamou validateAndFetchCepAsync
+    private CompletableFuture<CepDataDTO> fetchFromUpstream(String cleanCep) {
+        return Mono.fromCallable(() -> cepCacheService.get(cleanCep))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> cached
+                        .map(cepData -> {
+                            log.debug("CEP {} atendido pelo cache persistente", cleanCep);
+                            return Mono.just(cepData);
+                        })
+                        .orElseGet(() -> requestUpstream(cleanCep)))
+                .toFuture();
+    }
+
+    private Mono<CepDataDTO> requestUpstream(String cleanCep) {
+        return Mono.defer(() -> cepClient.getCepDataAsync(cleanCep))
+                .switchIfEmpty(Mono.error(() -> new BusinessException("CEP nÃ£o encontrado ou invÃ¡lido")))
+                .publishOn(Schedulers.boundedElastic())
+                .map(cepData -> validateCepData(cleanCep, cepData))
+                .doOnNext(cepData -> cepCacheService.put(cleanCep, cepData))
+                .doOnError(this::isNotFound, e -> cepCacheService.putInvalid(cleanCep))
+                .onErrorResume(this::isUpstreamFailure, e -> resolveDegraded(cleanCep, e))
+                .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                    log.error("Erro ao buscar dados do CEP {}: {}", cleanCep, e.getMessage());
+                    return new BusinessException("Erro ao buscar dados do CEP", e);
+                });
+    }
+
+    private boolean isNotFound(Throwable error) {
+        return error instanceof BusinessException businessException
+                && CepClient.CEP_NOT_FOUND.equals(businessException.getErrorCode());
+    }
+
+    private static BusinessException notFound() {
+        return new BusinessException("CEP nÃ£o encontrado ou invÃ¡lido", HttpStatus.BAD_REQUEST, CepClient.CEP_NOT_FOUND);
+    }
+
+    private boolean isUpstreamFailure(Throwable error) {
+        return !(error instanceof BusinessException businessException)
+                || CepClient.SERVICE_UNAVAILABLE.equals(businessException.getErrorCode());
+    }
+
+    // Modo degradado: ViaCEP indisponÃ­vel, resolve apenas cidade/UF pela faixa do CEP (nÃ£o vai para o cache)
+    private Mono<CepDataDTO> resolveDegraded(String cleanCep, Throwable error) {
+        return Mono.justOrEmpty(cepRangeService.resolve(cleanCep))
+                .doOnNext(cepData -> log.warn("ViaCEP indisponÃ­vel ({}); CEP {} resolvido por faixa: {}/{}",
+                        error.getMessage(), cleanCep, cepData.getLocalidade(), cepData.getUf()))
+                .switchIfEmpty(Mono.error(error));
+    }
+
+    private CepDataDTO validateCepData(String cleanCep, CepDataDTO cepData) {
+        if (cepData.getErro() != null && cepData.getErro()) {
+            throw notFound();
+        }
+
+        if (cepData.getLogradouro() == null || cepData.getLogradouro().trim().isEmpty()) {
+            log.warn("CEP {} retornou sem logradouro", cleanCep);
         }
+        
+        if (cepData.getLocalidade() == null || cepData.getLocalidade().trim().isEmpty()) {
+            throw new BusinessException("CEP retornou sem cidade");
+        }
+        
+        if (cepData.getUf() == null || cepData.getUf().trim().isEmpty()) {
+            throw new BusinessException("CEP retornou sem estado");
+        }
+        
+        log.info("Dados do CEP {} recuperados com sucesso", cleanCep);
+        return cepData;
     }
 
     public CepDataDTO getCachedCepData(String cep) {
@@ -65,7 +166,7 @@ public class CepService {
             return null;
         }
         
-        String cleanCep = cep.replaceAll("\\D", "");
+        String cleanCep = DocumentCodec.digits(cep);
         
         try {
             return validateAndFetchCep(cleanCep);
@@ -80,7 +181,7 @@ public class CepService {
             return false;
         }
         
-        String cleanCep = cep.replaceAll("\\D", "");
+        String cleanCep = DocumentCodec.digits(cep);
         
         if (cleanCep.length() != 8) {
             return false;
@@ -93,4 +194,29 @@ public class CepService {
             return false;
         }
     }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cep.lookup.coalesced", coalescedLookups, LongAdder::sum)
+                .description("Consultas de CEP atendidas por uma consulta ao ViaCEP jÃ¡ em andamento")
+                .register(registry);
+        Gauge.builder("cep.lookup.in-flight", inFlightLookups, Map::size)
+                .description("Consultas de CEP em andamento no ViaCEP")
+                .register(registry);
+    }
+
+    long getCoalescedLookups() {
+        return coalescedLookups.sum();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,202 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.CepWarmupStatusDTO;
+import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.repository.UserRepository;
+import com.sistema.cadastro.util.DocumentCodec;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@RequiredArgsConstructor
+public class CepWarmupService {
+
+    private static final int MAX_TRACKED_JOBS = 20;
+
+    private final CepService cepService;
+    private final UserRepository userRepository;
+    private static final Logger log = LoggerFactory.getLogger(CepWarmupService.class);
+
+    @Value("${app.cep.warmup.on-startup:true}")
+    private boolean warmupOnStartup;
+
+    @Value("${app.cep.warmup.concurrency:16}")
+    private int concurrency;
+
+    @Value("${app.cep.warmup.startup-budget:PT20S}")
+    private Duration startupBudget;
+
+    private final Map<String, WarmupJob> jobs = new ConcurrentHashMap<>();
+
+    // Roda antes de a aplicaÃ§Ã£o ser marcada como pronta; espera no mÃ¡ximo startup-budget e deixa o resto em segundo plano
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!warmupOnStartup) {
+            return;
+        }
+
+        List<String> ceps;
+        try {
+            ceps = userRepository.findDistinctCeps();
+        } catch (DataAccessException e) {
+            log.warn("Aquecimento do cache de CEP ignorado: falha ao ler CEPs dos usuÃ¡rios: {}", e.getMessage());
+            return;
+        }
+
+        if (ceps.isEmpty()) {
+            return;
+        }
+
+        WarmupJob job = startJob(ceps, "startup");
+        try {
+            job.completion.get(startupBudget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("Aquecimento do cache de CEP excedeu {} s na inicializaÃ§Ã£o ({}/{}); continuando em segundo plano",
+                    startupBudget.toSeconds(), job.processed.get(), job.total);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Aquecimento do cache de CEP interrompido: {}", e.getMessage());
+        }
+    }
+
+    public CepWarmupStatusDTO start(Collection<String> ceps) {
+        return toStatus(startJob(ceps, "admin"));
+    }
+
+    public CepWarmupStatusDTO getJob(String id) {
+        WarmupJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Aquecimento de CEP", "id", id);
+        }
+        return toStatus(job);
+    }
+
+    public List<CepWarmupStatusDTO> listJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((WarmupJob job) -> job.startedAt).reversed())
+                .map(this::toStatus)
+                .toList();
+    }
+
+    WarmupJob startJob(Collection<String> ceps, String source) {
+        List<String> distinct = ceps.stream()
+                .filter(cep -> cep != null && !cep.isBlank())
+                .map(DocumentCodec::digits)
+                .distinct()
+                .toList();
+
+        WarmupJob job = new WarmupJob(UUID.randomUUID().toString(), source, distinct.size());
+        registerJob(job);
+        log.info("Aquecimento do cache de CEP {} iniciado ({}): {} CEPs, concorrÃªncia {}",
+                job.id, source, job.total, concurrency);
+
+        Flux.fromIterable(distinct)
+                .flatMap(cep -> Mono.fromFuture(() -> cepService.validateAndFetchCepAsync(cep))
+                        .doOnSuccess(cepData -> job.loaded.incrementAndGet())
+                        .onErrorResume(error -> {
+                            job.failed.incrementAndGet();
+                            log.debug("Falha ao aquecer CEP {}: {}", cep, error.getMessage());
+                            return Mono.empty();
+                        })
+                        .doFinally(signal -> job.processed.incrementAndGet()), concurrency)
+                .then()
+                .subscribe(null, job::fail, job::finish);
+
+        return job;
+    }
+
+    private void registerJob(WarmupJob job) {
+        jobs.put(job.id, job);
+        if (jobs.size() > MAX_TRACKED_JOBS) {
+            jobs.values().stream()
+                    .filter(WarmupJob::isDone)
+                    .min(Comparator.comparing((WarmupJob j) -> j.startedAt))
+                    .ifPresent(oldest -> jobs.remove(oldest.id));
+        }
+    }
+
+    private CepWarmupStatusDTO toStatus(WarmupJob job) {
+        int processed = job.processed.get();
+        LocalDateTime end = job.finishedAt != null ? job.finishedAt : LocalDateTime.now();
+        double seconds = Math.max(Duration.between(job.startedAt, end).toMillis(), 1) / 1000.0;
+
+        return CepWarmupStatusDTO.builder()
+                .id(job.id)
+                .source(job.source)
+                .status(job.status)
+                .total(job.total)
+                .processed(processed)
+                .loaded(job.loaded.get())
+                .failed(job.failed.get())
+                .progress(job.total == 0 ? 1.0 : (double) processed / job.total)
+                .throughputPerSecond(processed / seconds)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .build();
+    }
+
+    static class WarmupJob {
+
+        private final String id;
+        private final String source;
+        private final int total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger loaded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+
+        WarmupJob(String id, String source, int total) {
+            this.id = id;
+            this.source = source;
+            this.total = total;
+        }
+
+        private void finish() {
+            finishedAt = LocalDateTime.now();
+            status = "COMPLETED";
+            completion.complete(null);
+            log.info("Aquecimento do cache de CEP {} concluÃ­do: {} carregados, {} falhas em {} ms",
+                    id, loaded.get(), failed.get(), Duration.between(startedAt, finishedAt).toMillis());
+        }
+
+        private void fail(Throwable error) {
+            finishedAt = LocalDateTime.now();
+            status = "FAILED";
+            completion.completeExceptionally(error);
+        }
+
+        boolean isDone() {
+            return completion.isDone();
+        }
+
+        CompletableFuture<Void> getCompletion() {
+            return completion;
+        }
+    }
+}
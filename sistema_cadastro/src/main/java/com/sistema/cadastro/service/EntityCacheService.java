@@ -0,0 +1,104 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.entity.Product;
+import com.sistema.cadastro.entity.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// MÃ©tricas do cache de segundo nÃ­vel por regiÃ£o e invalidaÃ§Ã£o do que o Hibernate nÃ£o enxerga (escritas por JDBC)
+@Service
+@RequiredArgsConstructor
+public class EntityCacheService implements MeterBinder {
+
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    static final List<String> REGIONS = List.of(User.CACHE_REGION, User.NATURAL_ID_CACHE_REGION,
+            Product.CACHE_REGION, Product.NATURAL_ID_CACHE_REGION, QUERY_RESULTS_REGION);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private static final Logger log = LoggerFactory.getLogger(EntityCacheService.class);
+
+    // InserÃ§Ãµes por JDBC nÃ£o marcam a tabela como alterada: uma busca por email em cache que nÃ£o encontrou
+    // o usuÃ¡rio continuaria respondendo "nÃ£o encontrado" depois da importaÃ§Ã£o
+    public void evictQueryResults() {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictDefaultQueryRegion();
+        log.debug("Resultados de consultas em cache descartados apÃ³s escrita fora do Hibernate");
+    }
+
+    // Mesmo critÃ©rio de ProductStockRepositoryImpl: descarta agora e de novo ao fim da transaÃ§Ã£o, para que uma leitura
+    // concorrente entre o UPDATE e o commit nÃ£o deixe a versÃ£o antiga no cache
+    public void evictProducts(Collection<Long> ids) {
+        jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+        ids.forEach(id -> cache.evict(Product.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> pending = List.copyOf(ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    pending.forEach(id -> cache.evict(Product.class, id));
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : REGIONS) {
+            counter(registry, statistics, region, "hit", CacheRegionStatistics::getHitCount);
+            counter(registry, statistics, region, "miss", CacheRegionStatistics::getMissCount);
+            Gauge.builder("hibernate.cache.hit.ratio", statistics, s -> hitRatio(regionStatistics(s, region)))
+                    .tag("region", region)
+                    .description("FraÃ§Ã£o das consultas Ã  regiÃ£o atendidas pelo cache")
+                    .register(registry);
+        }
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String region, String result,
+                                ToLongFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder("hibernate.cache.requests", statistics, s -> {
+                    CacheRegionStatistics regionStatistics = regionStatistics(s, region);
+                    return regionStatistics != null ? count.applyAsLong(regionStatistics) : 0;
+                })
+                .tag("region", region)
+                .tag("result", result)
+                .description("Consultas Ã  regiÃ£o do cache de segundo nÃ­vel")
+                .register(registry);
+    }
+
+    static double hitRatio(CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / requests;
+    }
+
+    // RegiÃ£o ainda nÃ£o criada (nenhum acesso) ou cache desligado: sem estatÃ­stica
+    private static CacheRegionStatistics regionStatistics(Statistics statistics, String region) {
+        try {
+            return QUERY_RESULTS_REGION.equals(region)
+                    ? statistics.getQueryRegionStatistics(region)
+                    : statistics.getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,13 +1,19 @@
 ﻿package com.sistema.cadastro.service;
 
+import com.sistema.cadastro.dto.CursorPageDTO;
 import com.sistema.cadastro.dto.ProductDTO;
 import com.sistema.cadastro.entity.Product;
 import com.sistema.cadastro.exception.BusinessException;
 import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.repository.EntityVersion;
+import com.sistema.cadastro.repository.FieldSet;
 import com.sistema.cadastro.repository.ProductRepository;
+import com.sistema.cadastro.repository.ProductSearchRepositoryImpl;
+import com.sistema.cadastro.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -15,17 +21,21 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final UniqueKeyFilterService uniqueKeyFilterService;
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
 
-    @Transactional
+    // Sem transaÃ§Ã£o prÃ³pria: o save confirma sozinho e, se o Ã­ndice Ãºnico recusar o SKU, a nova verificaÃ§Ã£o roda
+    // numa transaÃ§Ã£o limpa
     public Product createProduct(ProductDTO productDTO) {
         log.info("Criando novo produto: SKU {}", productDTO.getSku());
 
@@ -43,7 +53,8 @@ public class ProductService {
         product.setImageUrl(productDTO.getImageUrl());
         product.setIsActive(productDTO.getIsActive() != null ? productDTO.getIsActive() : true);
         
-        Product savedProduct = productRepository.save(product);
+        Product savedProduct = insertProduct(product);
+        uniqueKeyFilterService.add(UniqueKeyFilterService.Key.SKU, savedProduct.getSku());
         log.info("Produto criado com sucesso: ID {}, SKU {}", savedProduct.getId(), savedProduct.getSku());
         
         return savedProduct;
@@ -67,6 +78,18 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Produto", "SKU", sku));
     }
 
+    @Transactional(readOnly = true)
+    public EntityVersion getProductVersion(Long id) {
+        return productRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Produto", "id", id));
+    }
+
+    @Transactional(readOnly = true)
+    public EntityVersion getProductVersionBySku(String sku) {
+        return productRepository.findVersionBySku(sku.toUpperCase().trim())
+                .orElseThrow(() -> new ResourceNotFoundException("Produto", "SKU", sku));
+    }
+
     @Transactional(readOnly = true)
     public Page<Product> getAllProducts(Pageable pageable) {
         log.info("Listando produtos com paginaÃ§Ã£o: pÃ¡gina {}, tamanho {}", 
@@ -95,6 +118,109 @@ public class ProductService {
                 minStock, maxStock, isActive, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Product> getProductsAfter(String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        log.info("Listando produtos por cursor: apÃ³s {}/{}, tamanho {}", cursor.getCreatedAt(), cursor.getId(), size);
+
+        List<Product> rows = productRepository.findPageAfter(cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        return CursorPageDTO.of(rows, size, ProductService::positionOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Product> getActiveProductsAfter(String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        log.info("Listando produtos ativos por cursor");
+
+        List<Product> rows = productRepository.findActivePageAfter(cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        return CursorPageDTO.of(rows, size, ProductService::positionOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Product> getProductsByFiltersAfter(String name, String sku, String category, String brand,
+                                                          BigDecimal minPrice, BigDecimal maxPrice,
+                                                          Integer minStock, Integer maxStock,
+                                                          Boolean isActive, String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        log.info("Buscando produtos com filtros por cursor: nome={}, sku={}, categoria={}, marca={}, " +
+                "minPrice={}, maxPrice={}, minStock={}, maxStock={}, isActive={}",
+                name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive);
+
+        List<Product> rows = productRepository.findByFiltersAfter(name, sku, category, brand, minPrice, maxPrice,
+                minStock, maxStock, isActive, cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        return CursorPageDTO.of(rows, size, ProductService::positionOf);
+    }
+
+    private static KeysetCursor positionOf(Product product) {
+        return new KeysetCursor(product.getCreatedAt(), product.getId());
+    }
+
+    // VariaÃ§Ãµes com ?fields=: SELECT sÃ³ das colunas pedidas, devolvidas como Map sem carregar a entidade
+    @Transactional(readOnly = true)
+    public Map<String, Object> getProductFieldsById(Long id, String fields) {
+        log.info("Buscando produto por ID: {}, campos {}", id, fields);
+
+        return productRepository.findFieldsById(id, ProductSearchRepositoryImpl.fieldSet(fields))
+                .orElseThrow(() -> new ResourceNotFoundException("Produto", "id", id));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getAllProductFields(String fields, Pageable pageable) {
+        return getProductFieldsByFilters(null, null, null, null, null, null, null, null, null, fields, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getActiveProductFields(String fields, Pageable pageable) {
+        return getProductFieldsByFilters(null, null, null, null, null, null, null, null, true, fields, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getProductFieldsByFilters(String name, String sku, String category, String brand,
+                                                               BigDecimal minPrice, BigDecimal maxPrice,
+                                                               Integer minStock, Integer maxStock,
+                                                               Boolean isActive, String fields, Pageable pageable) {
+        log.info("Buscando produtos com filtros: nome={}, sku={}, categoria={}, marca={}, " +
+                "minPrice={}, maxPrice={}, minStock={}, maxStock={}, isActive={}, campos {}",
+                name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive, fields);
+
+        return productRepository.findFieldsByFilters(name, sku, category, brand, minPrice, maxPrice,
+                minStock, maxStock, isActive, ProductSearchRepositoryImpl.fieldSet(fields), pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Map<String, Object>> getProductFieldsAfter(String fields, String after, int size) {
+        return getProductFieldsByFiltersAfter(null, null, null, null, null, null, null, null, null, fields, after, size);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Map<String, Object>> getActiveProductFieldsAfter(String fields, String after, int size) {
+        return getProductFieldsByFiltersAfter(null, null, null, null, null, null, null, null, true, fields, after, size);
+    }
+
+    // created_at e id entram no SELECT para montar o cursor e saem da resposta se nÃ£o foram pedidos
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Map<String, Object>> getProductFieldsByFiltersAfter(String name, String sku, String category, String brand,
+                                                                             BigDecimal minPrice, BigDecimal maxPrice,
+                                                                             Integer minStock, Integer maxStock, Boolean isActive,
+                                                                             String fields, String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        FieldSet requested = ProductSearchRepositoryImpl.fieldSet(fields);
+        log.info("Buscando produtos com filtros por cursor: nome={}, sku={}, categoria={}, marca={}, " +
+                "minPrice={}, maxPrice={}, minStock={}, maxStock={}, isActive={}, campos {}",
+                name, sku, category, brand, minPrice, maxPrice, minStock, maxStock, isActive, requested);
+
+        List<Map<String, Object>> rows = productRepository.findFieldsByFiltersAfter(name, sku, category, brand,
+                minPrice, maxPrice, minStock, maxStock, isActive, requested.with("createdAt", "id"),
+                cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        CursorPageDTO<Map<String, Object>> page = CursorPageDTO.of(rows, size, ProductService::positionOf);
+        page.getContent().forEach(requested::retain);
+        return page;
+    }
+
+    private static KeysetCursor positionOf(Map<String, Object> row) {
+        return new KeysetCursor((LocalDateTime) row.get("createdAt"), ((Number) row.get("id")).longValue());
+    }
+
     @Transactional(readOnly = true)
     public Page<Product> getProductsByName(String name, Pageable pageable) {
         log.info("Buscando produtos por nome: {}", name);
@@ -146,6 +272,7 @@ public class ProductService {
         
         Product product = getProductById(id);
         productRepository.delete(product);
+        uniqueKeyFilterService.markRemoved(UniqueKeyFilterService.Key.SKU, product.getSku());
         
         log.info("Produto deletado com sucesso: ID {}", id);
     }
@@ -154,15 +281,17 @@ public class ProductService {
     public Product updateProductStock(Long id, Integer quantity, boolean increase) {
         log.info("Atualizando estoque do produto ID: {}, quantidade: {}, aumentar: {}", id, quantity, increase);
         
-        Product product = getProductById(id);
-        
-        if (increase) {
-            product.increaseStock(quantity);
-        } else {
-            product.decreaseStock(quantity);
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que zero");
         }
-        
-        Product updatedProduct = productRepository.save(product);
+
+        // Uma Ãºnica ida ao banco; a segunda consulta sÃ³ acontece na falha, para separar 404 de estoque insuficiente
+        Product updatedProduct = productRepository.adjustStock(id, increase ? quantity : -quantity)
+                .orElseThrow(() -> {
+                    int available = productRepository.findStockById(id)
+                            .orElseThrow(() -> new ResourceNotFoundException("Produto", "id", id));
+                    return new IllegalStateException("Estoque insuficiente. DisponÃ­vel: " + available + ", Solicitado: " + quantity);
+                });
         log.info("Estoque atualizado com sucesso: ID {}, novo estoque: {}", updatedProduct.getId(), updatedProduct.getStock());
         
         return updatedProduct;
@@ -209,11 +338,27 @@ public class ProductService {
         return totalStock != null ? totalStock : 0L;
     }
 
+    // O filtro de Bloom Ã© local e reconstruÃ­do periodicamente: um SKU criado por outra instÃ¢ncia pode passar como
+    // ausente e sÃ³ esbarrar no Ã­ndice Ãºnico. Mesmo tratamento de UserService.insertUser
+    private Product insertProduct(Product product) {
+        try {
+            return productRepository.save(product);
+        } catch (DataIntegrityViolationException e) {
+            if (productRepository.existsBySku(product.getSku())) {
+                throw new BusinessException("SKU jÃ¡ cadastrado", org.springframework.http.HttpStatus.CONFLICT, "DUPLICATE_SKU");
+            }
+            throw e;
+        }
+    }
+
     private void validateProductCreation(ProductDTO productDTO) {
 
         String cleanSku = productDTO.getSku().toUpperCase().trim();
-        if (productRepository.existsBySku(cleanSku)) {
-            throw new BusinessException("SKU jÃ¡ cadastrado", org.springframework.http.HttpStatus.CONFLICT, "DUPLICATE_SKU");
+        if (!uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.SKU, cleanSku)) {
+            if (productRepository.existsBySku(cleanSku)) {
+                throw new BusinessException("SKU jÃ¡ cadastrado", org.springframework.http.HttpStatus.CONFLICT, "DUPLICATE_SKU");
+            }
+            uniqueKeyFilterService.recordFalsePositive(UniqueKeyFilterService.Key.SKU);
         }
 
         if (productDTO.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
@@ -0,0 +1,289 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.RegistrationBucketDTO;
+import com.sistema.cadastro.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Contadores de cadastros por hora e por dia em user_registration_stats (schema.sql). Cadastros e exclusÃµes
+// acumulam em memÃ³ria e sÃ£o gravados em lote: evita que todo cadastro da mesma hora dispute a mesma linha.
+// A reconciliaÃ§Ã£o periÃ³dica recalcula a janela recente a partir de users e corrige qualquer desvio.
+@Service
+@RequiredArgsConstructor
+public class RegistrationStatsService {
+
+    public enum Bucket {
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Bucket(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        public LocalDateTime next(LocalDateTime start) {
+            return start.plus(1, unit);
+        }
+    }
+
+    static final int MAX_HISTOGRAM_BUCKETS = 2000;
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1, 1, 1, 0, 0);
+
+    private static final String UPSERT_SQL = "INSERT INTO user_registration_stats (granularity, bucket_start, registrations) " +
+            "VALUES (?, ?, ?) ON CONFLICT (granularity, bucket_start) " +
+            "DO UPDATE SET registrations = user_registration_stats.registrations + EXCLUDED.registrations";
+
+    // ON CONFLICT cobre uma linha gravada entre o DELETE e o INSERT por quem nÃ£o passou pelo lock
+    static final String RECOUNT_SQL = "INSERT INTO user_registration_stats (granularity, bucket_start, registrations) " +
+            "SELECT ?, date_trunc(?, u.created_at), COUNT(*) FROM users u WHERE u.created_at >= ? GROUP BY 2 " +
+            "ON CONFLICT (granularity, bucket_start) DO UPDATE SET registrations = EXCLUDED.registrations";
+
+    // Chave do pg_advisory_xact_lock que serializa gravaÃ§Ãµes e reconciliaÃ§Ãµes entre instÃ¢ncias
+    private static final long WRITE_LOCK_KEY = 0x5245_4753_5441_5453L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private static final Logger log = LoggerFactory.getLogger(RegistrationStatsService.class);
+
+    @Value("${app.users.stats.reconcile-window:P2D}")
+    private Duration reconcileWindow;
+
+    private final Map<BucketKey, Long> pending = new ConcurrentHashMap<>();
+
+    // Na mesma instÃ¢ncia a espera fica aqui, sem segurar uma conexÃ£o do pool parada no lock do banco
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public void recordCreated(LocalDateTime createdAt, int count) {
+        record(createdAt, count);
+    }
+
+    public void recordDeleted(LocalDateTime createdAt) {
+        record(createdAt, -1);
+    }
+
+    // Dentro de uma transaÃ§Ã£o o contador sÃ³ muda depois do commit; um rollback nÃ£o deixa cadastro fantasma
+    private void record(LocalDateTime createdAt, int delta) {
+        if (createdAt == null || delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(createdAt, delta);
+                }
+            });
+        } else {
+            accumulate(createdAt, delta);
+        }
+    }
+
+    private void accumulate(LocalDateTime createdAt, long delta) {
+        for (Bucket bucket : Bucket.values()) {
+            pending.merge(new BucketKey(bucket, bucket.truncate(createdAt)), delta, Long::sum);
+        }
+    }
+
+    // O lote sai ordenado por chave para que gravaÃ§Ãµes concorrentes travem as linhas sempre na mesma ordem
+    @Scheduled(fixedDelayString = "${app.users.stats.flush-interval:PT5S}")
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<BucketKey, Long> taken = drain();
+            if (taken.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lockForWrite();
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, batch(taken));
+                });
+            } catch (RuntimeException e) {
+                restore(taken);
+                log.error("Falha ao gravar {} contadores de cadastro; nova tentativa no prÃ³ximo ciclo: {}", taken.size(), e.getMessage());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Recalcula a janela recente a partir de users; na primeira execuÃ§Ã£o (tabela vazia) recalcula todo o histÃ³rico.
+    // Os incrementos pendentes desta instÃ¢ncia sÃ£o de cadastros jÃ¡ confirmados, que a recontagem enxerga: dentro da
+    // janela sÃ£o descartados em vez de gravados depois, o que contaria o mesmo cadastro duas vezes. Os pendentes de
+    // outras instÃ¢ncias podem ainda ser contados em dobro atÃ© a reconciliaÃ§Ã£o seguinte
+    @Scheduled(fixedDelayString = "${app.users.stats.reconcile-interval:PT1H}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM user_registration_stats LIMIT 1) s",
+                Integer.class);
+        LocalDateTime from = existing != null && existing > 0 ? LocalDateTime.now().minus(reconcileWindow) : BEGINNING;
+
+        writeLock.lock();
+        try {
+            Map<BucketKey, Long> taken = drain();
+            Map<BucketKey, Long> older = new TreeMap<>();
+            taken.forEach((key, delta) -> {
+                if (key.start().isBefore(key.bucket().truncate(from))) {
+                    older.put(key, delta);
+                }
+            });
+            Map<BucketKey, Long> recounted = new TreeMap<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lockForWrite();
+                    if (!older.isEmpty()) {
+                        jdbcTemplate.batchUpdate(UPSERT_SQL, batch(older));
+                    }
+                    for (Bucket bucket : Bucket.values()) {
+                        LocalDateTime bucketStart = bucket.truncate(from);
+                        Timestamp bucketFrom = Timestamp.valueOf(bucketStart);
+                        jdbcTemplate.update("DELETE FROM user_registration_stats WHERE granularity = ? AND bucket_start >= ?",
+                                bucket.name(), bucketFrom);
+                        // Cadastros confirmados depois do primeiro drain e antes deste ponto tambÃ©m entram na recontagem
+                        // (cada comando enxerga o que foi confirmado atÃ© ele comeÃ§ar): os incrementos saem logo antes
+                        drainWindow(bucket, bucketStart, recounted);
+                        jdbcTemplate.update(RECOUNT_SQL, bucket.name(), bucket.name().toLowerCase(Locale.ROOT), bucketFrom);
+                    }
+                });
+            } catch (RuntimeException e) {
+                restore(taken);
+                restore(recounted);
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        log.info("Contadores de cadastro reconciliados desde {} em {} ms", from == BEGINNING ? "o inÃ­cio" : from,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Libera sozinho no fim da transaÃ§Ã£o, inclusive em rollback
+    private void lockForWrite() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + WRITE_LOCK_KEY + ")");
+    }
+
+    // remove() Ã© atÃ´mico por chave: incrementos que chegam durante a gravaÃ§Ã£o criam uma nova entrada
+    private Map<BucketKey, Long> drain() {
+        Map<BucketKey, Long> taken = new TreeMap<>();
+        for (BucketKey key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null && delta != 0) {
+                taken.put(key, delta);
+            }
+        }
+        return taken;
+    }
+
+    private void drainWindow(Bucket bucket, LocalDateTime from, Map<BucketKey, Long> taken) {
+        for (BucketKey key : pending.keySet()) {
+            if (key.bucket() == bucket && !key.start().isBefore(from)) {
+                Long delta = pending.remove(key);
+                if (delta != null && delta != 0) {
+                    taken.merge(key, delta, Long::sum);
+                }
+            }
+        }
+    }
+
+    private void restore(Map<BucketKey, Long> taken) {
+        taken.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+    }
+
+    private static List<Object[]> batch(Map<BucketKey, Long> deltas) {
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> batch.add(new Object[]{key.bucket().name(), Timestamp.valueOf(key.start()), delta}));
+        return batch;
+    }
+
+    public long countToday() {
+        return countSince(Bucket.DAY, LocalDate.now().atStartOfDay());
+    }
+
+    // Janela mÃ³vel somada em buckets de hora: inclui no mÃ¡ximo a fraÃ§Ã£o da hora em que a janela comeÃ§a
+    public long countLast(Duration window) {
+        return countSince(Bucket.HOUR, Bucket.HOUR.truncate(LocalDateTime.now().minus(window)));
+    }
+
+    private long countSince(Bucket bucket, LocalDateTime from) {
+        Long stored = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(registrations), 0) FROM user_registration_stats " +
+                "WHERE granularity = ? AND bucket_start >= ?", Long.class, bucket.name(), Timestamp.valueOf(from));
+        long total = stored != null ? stored : 0;
+        for (Map.Entry<BucketKey, Long> entry : pending.entrySet()) {
+            if (entry.getKey().bucket() == bucket && !entry.getKey().start().isBefore(from)) {
+                total += entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    public List<RegistrationBucketDTO> histogram(LocalDateTime from, LocalDateTime to, Bucket bucket) {
+        LocalDateTime start = bucket.truncate(from);
+        if (!to.isAfter(start)) {
+            throw new BusinessException("Intervalo invÃ¡lido: 'to' deve ser posterior a 'from'", HttpStatus.BAD_REQUEST,
+                    "INVALID_RANGE");
+        }
+        long buckets = bucket.unit.between(start, to) + 1;
+        if (buckets > MAX_HISTOGRAM_BUCKETS) {
+            throw new BusinessException("Intervalo com mais de " + MAX_HISTOGRAM_BUCKETS + " buckets; use bucket=DAY ou reduza o perÃ­odo",
+                    HttpStatus.BAD_REQUEST, "INVALID_RANGE");
+        }
+
+        Map<LocalDateTime, Long> counts = new TreeMap<>();
+        jdbcTemplate.query("SELECT bucket_start, registrations FROM user_registration_stats " +
+                        "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?",
+                rs -> {
+                    counts.merge(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), Long::sum);
+                },
+                bucket.name(), Timestamp.valueOf(start), Timestamp.valueOf(to));
+        pending.forEach((key, delta) -> {
+            if (key.bucket() == bucket && !key.start().isBefore(start) && key.start().isBefore(to)) {
+                counts.merge(key.start(), delta, Long::sum);
+            }
+        });
+
+        // Buckets sem cadastro entram com zero para o grÃ¡fico nÃ£o ter buracos
+        List<RegistrationBucketDTO> histogram = new ArrayList<>();
+        for (LocalDateTime cursor = start; cursor.isBefore(to); cursor = bucket.next(cursor)) {
+            histogram.add(new RegistrationBucketDTO(cursor, counts.getOrDefault(cursor, 0L)));
+        }
+        return histogram;
+    }
+
+    private record BucketKey(Bucket bucket, LocalDateTime start) implements Comparable<BucketKey> {
+
+        @Override
+        public int compareTo(BucketKey other) {
+            int byBucket = bucket.compareTo(other.bucket);
+            return byBucket != 0 ? byBucket : start.compareTo(other.start);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.StockReservationItemDTO;
+import com.sistema.cadastro.dto.StockReservationLineDTO;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.exception.StockShortageException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Baixa de estoque de vÃ¡rios produtos numa transaÃ§Ã£o sÃ³: ou todos os itens sÃ£o reservados, ou nenhum
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    // ORDER BY id antes do FOR UPDATE: toda reserva trava as linhas na mesma ordem, entÃ£o duas reservas com
+    // produtos em comum esperam uma pela outra em vez de entrar em deadlock
+    static final String LOCK_SQL = "SELECT id, sku, stock FROM products " +
+            "WHERE id = ANY(CAST(:ids AS bigint[])) OR sku = ANY(CAST(:skus AS varchar[])) ORDER BY id FOR UPDATE";
+
+    // Todas as baixas num Ãºnico UPDATE; as linhas jÃ¡ estÃ£o travadas, a condiÃ§Ã£o de estoque sÃ³ protege contra erro
+    static final String RESERVE_SQL = "UPDATE products p SET stock = p.stock - r.quantity, updated_at = :updatedAt " +
+            "FROM unnest(CAST(:ids AS bigint[]), CAST(:quantities AS integer[])) AS r(id, quantity) " +
+            "WHERE p.id = r.id AND p.stock >= r.quantity RETURNING p.id, p.stock";
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityCacheService entityCacheService;
+
+    public List<StockReservationLineDTO> reserve(List<StockReservationItemDTO> items) {
+        List<StockReservationLineDTO> lines = normalize(items);
+        List<StockReservationLineDTO> reserved = transactionTemplate.execute(status -> reserveLocked(lines));
+        log.info("Reserva de estoque concluÃ­da: {} item(ns)", reserved.size());
+        return reserved;
+    }
+
+    private List<StockReservationLineDTO> reserveLocked(List<StockReservationLineDTO> lines) {
+        Map<Long, Integer> stockById = new HashMap<>();
+        Map<String, Long> idBySku = new HashMap<>();
+        jdbcTemplate.query(LOCK_SQL, new MapSqlParameterSource()
+                        .addValue("ids", lines.stream().map(StockReservationLineDTO::getProductId)
+                                .filter(id -> id != null).distinct().toArray(Long[]::new))
+                        .addValue("skus", lines.stream().map(StockReservationLineDTO::getSku)
+                                .filter(sku -> sku != null).distinct().toArray(String[]::new)),
+                rs -> {
+                    long id = rs.getLong("id");
+                    stockById.put(id, rs.getInt("stock"));
+                    idBySku.put(rs.getString("sku"), id);
+                });
+
+        // Mesmo produto por id e por SKU, ou repetido, soma as quantidades; TreeMap mantÃ©m a ordem de id no UPDATE
+        Map<Long, Integer> requested = new TreeMap<>();
+        for (StockReservationLineDTO line : lines) {
+            if (line.getProductId() == null) {
+                Long id = idBySku.get(line.getSku());
+                if (id == null) {
+                    throw new ResourceNotFoundException("Produto", "SKU", line.getSku());
+                }
+                line.setProductId(id);
+            } else if (!stockById.containsKey(line.getProductId())) {
+                throw new ResourceNotFoundException("Produto", "id", line.getProductId());
+            }
+            requested.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+
+        List<StockReservationLineDTO> shortages = new ArrayList<>();
+        for (StockReservationLineDTO line : lines) {
+            int available = stockById.get(line.getProductId());
+            if (requested.get(line.getProductId()) > available) {
+                line.setAvailableStock(available);
+                shortages.add(line);
+            }
+        }
+        if (!shortages.isEmpty()) {
+            throw new StockShortageException(shortages);
+        }
+
+        Map<Long, Integer> remaining = new HashMap<>();
+        jdbcTemplate.query(RESERVE_SQL, new MapSqlParameterSource()
+                        .addValue("ids", requested.keySet().toArray(Long[]::new))
+                        .addValue("quantities", requested.values().toArray(Integer[]::new))
+                        .addValue("updatedAt", LocalDateTime.now()),
+                rs -> {
+                    remaining.put(rs.getLong(1), rs.getInt(2));
+                });
+        if (remaining.size() != requested.size()) {
+            throw new IllegalStateException("Reserva de estoque alterou " + remaining.size() + " de " + requested.size() + " produtos");
+        }
+        // O UPDATE por JDBC nÃ£o passa pelo cache de segundo nÃ­vel; o descarte comeÃ§a ainda dentro da transaÃ§Ã£o
+        entityCacheService.evictProducts(lines.stream().map(StockReservationLineDTO::getProductId).distinct().toList());
+        lines.forEach(line -> line.setRemainingStock(remaining.get(line.getProductId())));
+        return lines;
+    }
+
+    private static List<StockReservationLineDTO> normalize(List<StockReservationItemDTO> items) {
+        List<StockReservationLineDTO> lines = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            StockReservationItemDTO item = items.get(i);
+            boolean hasSku = item.getSku() != null && !item.getSku().isBlank();
+            if ((item.getProductId() == null) == !hasSku) {
+                throw new BusinessException("Item " + (i + 1) + ": informe productId ou sku", HttpStatus.BAD_REQUEST, "INVALID_RESERVATION_ITEM");
+            }
+            lines.add(StockReservationLineDTO.builder()
+                    .line(i + 1)
+                    .productId(item.getProductId())
+                    .sku(hasSku ? item.getSku().toUpperCase().trim() : null)
+                    .quantity(item.getQuantity())
+                    .build());
+        }
+        return lines;
+    }
+}
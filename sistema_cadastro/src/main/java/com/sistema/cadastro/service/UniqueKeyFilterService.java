@@ -0,0 +1,227 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.util.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+@Service
+@RequiredArgsConstructor
+public class UniqueKeyFilterService implements MeterBinder {
+
+    public enum Key { CPF, EMAIL, SKU }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private static final Logger log = LoggerFactory.getLogger(UniqueKeyFilterService.class);
+
+    @Value("${app.bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.bloom.users.expected-insertions:20000000}")
+    private long expectedUsers;
+
+    @Value("${app.bloom.products.expected-insertions:2000000}")
+    private long expectedProducts;
+
+    @Value("${app.bloom.fetch-size:10000}")
+    private int fetchSize;
+
+    // Nulo atÃ© a primeira carga terminar: enquanto isso toda verificaÃ§Ã£o segue para o banco
+    private volatile Map<Key, BloomFilter> filters;
+    private volatile Map<Key, BloomFilter> building;
+
+    private final Map<Key, LongAdder> skipped = counters();
+    private final Map<Key, LongAdder> passed = counters();
+    private final Map<Key, LongAdder> falsePositives = counters();
+    private final Map<Key, LongAdder> removed = counters();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+
+    // Responde true apenas quando a chave certamente nÃ£o existe; na dÃºvida a consulta ao banco continua necessÃ¡ria
+    public boolean isDefinitelyAbsent(Key key, String value) {
+        Map<Key, BloomFilter> current = filters;
+        if (current == null || value == null) {
+            return false;
+        }
+
+        if (current.get(key).mightContain(value)) {
+            passed.get(key).increment();
+            return false;
+        }
+        skipped.get(key).increment();
+        return true;
+    }
+
+    // Dentro de uma transaÃ§Ã£o a chave sÃ³ entra depois do commit: confirmada antes da leitura da reconstruÃ§Ã£o, a
+    // leitura a enxerga; confirmada depois, building jÃ¡ estÃ¡ publicado e recebe a chave aqui
+    public void add(Key key, String value) {
+        if (value == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(key, value);
+                }
+            });
+        } else {
+            put(key, value);
+        }
+    }
+
+    private void put(Key key, String value) {
+        Map<Key, BloomFilter> current = filters;
+        if (current != null) {
+            current.get(key).put(value);
+        }
+        Map<Key, BloomFilter> next = building;
+        if (next != null) {
+            next.get(key).put(value);
+        }
+    }
+
+    // Bits nÃ£o podem ser desligados: a chave removida sÃ³ custa uma consulta a mais atÃ© a prÃ³xima reconstruÃ§Ã£o
+    public void markRemoved(Key key, String value) {
+        if (value != null) {
+            removed.get(key).increment();
+        }
+    }
+
+    // O filtro indicou presenÃ§a e o banco nÃ£o encontrou a chave
+    public void recordFalsePositive(Key key) {
+        falsePositives.get(key).increment();
+    }
+
+    public boolean isReady() {
+        return filters != null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.bloom.rebuild-interval:PT6H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<Key, BloomFilter> next = new EnumMap<>(Key.class);
+        next.put(Key.CPF, BloomFilter.create(expectedUsers, falsePositiveRate));
+        next.put(Key.EMAIL, BloomFilter.create(expectedUsers, falsePositiveRate));
+        next.put(Key.SKU, BloomFilter.create(expectedProducts, falsePositiveRate));
+        // Cadastros feitos durante a leitura entram nos dois conjuntos de filtros
+        building = next;
+
+        try {
+            // O driver do PostgreSQL sÃ³ usa cursor (fetchSize) dentro de uma transaÃ§Ã£o; a tabela nÃ£o Ã© carregada inteira
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                jdbcTemplate.query(connection -> streaming(connection.prepareStatement("SELECT cpf, email FROM users")),
+                        rs -> {
+                            next.get(Key.CPF).put(rs.getString(1));
+                            next.get(Key.EMAIL).put(rs.getString(2));
+                        });
+                jdbcTemplate.query(connection -> streaming(connection.prepareStatement("SELECT sku FROM products")),
+                        rs -> {
+                            next.get(Key.SKU).put(rs.getString(1));
+                        });
+            });
+        } catch (RuntimeException e) {
+            building = null;
+            log.error("Falha ao reconstruir filtros de Bloom de chaves Ãºnicas: {}", e.getMessage());
+            return;
+        }
+
+        filters = next;
+        building = null;
+        removed.values().forEach(LongAdder::reset);
+        lastRebuildMillis.set((System.nanoTime() - start) / 1_000_000);
+
+        log.info("Filtros de Bloom reconstruÃ­dos em {} ms: ~{} CPFs, ~{} emails, ~{} SKUs, {} KB",
+                lastRebuildMillis.get(),
+                next.get(Key.CPF).approximateElementCount(),
+                next.get(Key.EMAIL).approximateElementCount(),
+                next.get(Key.SKU).approximateElementCount(),
+                next.values().stream().mapToLong(BloomFilter::memoryBytes).sum() / 1024);
+    }
+
+    private PreparedStatement streaming(PreparedStatement statement) throws SQLException {
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Key key : Key.values()) {
+            String tag = key.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder("bloom.filter.checks", skipped.get(key), LongAdder::sum)
+                    .tag("key", tag)
+                    .tag("result", "absent")
+                    .description("VerificaÃ§Ãµes de unicidade resolvidas pelo filtro de Bloom, sem consulta ao banco")
+                    .register(registry);
+            FunctionCounter.builder("bloom.filter.checks", passed.get(key), LongAdder::sum)
+                    .tag("key", tag)
+                    .tag("result", "maybe")
+                    .description("VerificaÃ§Ãµes de unicidade que seguiram para o banco")
+                    .register(registry);
+            FunctionCounter.builder("bloom.filter.false.positives", falsePositives.get(key), LongAdder::sum)
+                    .tag("key", tag)
+                    .description("Chaves indicadas como presentes pelo filtro e ausentes no banco")
+                    .register(registry);
+            Gauge.builder("bloom.filter.expected.fpp", this, service -> service.filterValue(key, BloomFilter::expectedFalsePositiveRate))
+                    .tag("key", tag)
+                    .description("Taxa estimada de falsos positivos do filtro de Bloom")
+                    .register(registry);
+            Gauge.builder("bloom.filter.memory", this, service -> service.filterValue(key, BloomFilter::memoryBytes))
+                    .tag("key", tag)
+                    .baseUnit("bytes")
+                    .description("MemÃ³ria ocupada pelo filtro de Bloom")
+                    .register(registry);
+            Gauge.builder("bloom.filter.stale.keys", removed.get(key), LongAdder::sum)
+                    .tag("key", tag)
+                    .description("Chaves removidas desde a Ãºltima reconstruÃ§Ã£o e ainda presentes no filtro")
+                    .register(registry);
+        }
+        Gauge.builder("bloom.filter.rebuild.duration", lastRebuildMillis, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .description("DuraÃ§Ã£o da Ãºltima reconstruÃ§Ã£o dos filtros de Bloom")
+                .register(registry);
+    }
+
+    private double filterValue(Key key, ToDoubleFunction<BloomFilter> value) {
+        Map<Key, BloomFilter> current = filters;
+        return current == null ? 0 : value.applyAsDouble(current.get(key));
+    }
+
+    private static Map<Key, LongAdder> counters() {
+        Map<Key, LongAdder> counters = new EnumMap<>(Key.class);
+        for (Key key : Key.values()) {
+            counters.put(key, new LongAdder());
+        }
+        return counters;
+    }
+}
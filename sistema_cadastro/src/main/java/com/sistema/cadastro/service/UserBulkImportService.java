@@ -0,0 +1,494 @@
+﻿package com.sistema.cadastro.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.dto.UserBulkRowResultDTO;
+import com.sistema.cadastro.dto.UserBulkSummaryDTO;
+import com.sistema.cadastro.dto.UserDTO;
+import com.sistema.cadastro.entity.AddressStatus;
+import com.sistema.cadastro.entity.User;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.repository.UserRepository;
+import com.sistema.cadastro.util.CsvLines;
+import com.sistema.cadastro.util.DocumentCodec;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class UserBulkImportService implements MeterBinder {
+
+    public enum Format { CSV, NDJSON }
+
+    static final String CREATED = "CREATED";
+    static final String REJECTED = "REJECTED";
+
+    private static final String INSERT_SQL = "INSERT INTO users (name, email, cpf, cep, address, city, state, " +
+            "neighborhood, complement, number, address_status, created_at, updated_at) VALUES (:name, :email, :cpf, " +
+            ":cep, :address, :city, :state, :neighborhood, :complement, :number, :addressStatus, :createdAt, :updatedAt)";
+
+    private final UserRepository userRepository;
+    private final CepService cepService;
+    private final AddressEnrichmentService addressEnrichmentService;
+    private final UniqueKeyFilterService uniqueKeyFilterService;
+    private final RegistrationStatsService registrationStatsService;
+    private final EntityCacheService entityCacheService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private static final Logger log = LoggerFactory.getLogger(UserBulkImportService.class);
+
+    @Value("${app.users.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.users.bulk.cep-concurrency:16}")
+    private int cepConcurrency;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // LÃª a entrada linha a linha e grava o relatÃ³rio a cada lote: nem o arquivo nem o relatÃ³rio ficam inteiros em memÃ³ria
+    public UserBulkSummaryDTO importUsers(InputStream input, Format format, OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowReader rows = format == Format.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+
+        int total = 0;
+        int createdRows = 0;
+        List<BulkRow> chunk = new ArrayList<>(chunkSize);
+        BulkRow row;
+        while ((row = rows.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                createdRows += processChunk(chunk, output);
+                total += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            createdRows += processChunk(chunk, output);
+            total += chunk.size();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        UserBulkSummaryDTO summary = UserBulkSummaryDTO.builder()
+                .summary(true)
+                .total(total)
+                .created(createdRows)
+                .rejected(total - createdRows)
+                .elapsedMillis(elapsedMillis)
+                .rowsPerSecond(total * 1000.0 / Math.max(elapsedMillis, 1))
+                .build();
+        writeLine(output, summary);
+        output.flush();
+
+        log.info("ImportaÃ§Ã£o em lote concluÃ­da: {} linhas, {} usuÃ¡rios criados, {} rejeitados em {} ms",
+                total, createdRows, total - createdRows, elapsedMillis);
+        return summary;
+    }
+
+    private int processChunk(List<BulkRow> chunk, OutputStream output) throws IOException {
+        List<BulkRow> candidates = validateRows(chunk);
+        rejectExisting(candidates);
+        resolveAddresses(candidates);
+        int inserted = insert(candidates.stream().filter(BulkRow::isPending).toList());
+
+        for (BulkRow row : chunk) {
+            writeLine(output, row.result);
+        }
+        output.flush();
+
+        created.add(inserted);
+        rejected.add(chunk.size() - inserted);
+        return inserted;
+    }
+
+    private List<BulkRow> validateRows(List<BulkRow> chunk) {
+        Set<String> cpfs = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<BulkRow> candidates = new ArrayList<>(chunk.size());
+
+        for (BulkRow row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+
+            Set<ConstraintViolation<UserDTO>> violations = validator.validate(row.dto);
+            if (!violations.isEmpty()) {
+                row.reject("VALIDATION_ERROR", violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+
+            User user = new User();
+            user.setName(row.dto.getName());
+            user.setEmail(row.dto.getEmail().toLowerCase().trim());
+            user.setCpf(DocumentCodec.digits(row.dto.getCpf()));
+            user.setCep(DocumentCodec.digits(row.dto.getCep()));
+            user.setNumber(row.dto.getNumber());
+            try {
+                user.validate();
+            } catch (IllegalArgumentException e) {
+                row.reject("INVALID_CPF", e.getMessage());
+                continue;
+            }
+
+            if (!cpfs.add(user.getCpf())) {
+                row.reject("DUPLICATE_CPF", "CPF repetido no arquivo");
+            } else if (!emails.add(user.getEmail())) {
+                row.reject("DUPLICATE_EMAIL", "Email repetido no arquivo");
+            } else {
+                row.user = user;
+                candidates.add(row);
+            }
+        }
+        return candidates;
+    }
+
+    // Uma Ãºnica consulta IN por lote no lugar de verificar CPF e email linha a linha
+    private void rejectExisting(List<BulkRow> candidates) {
+        // Linhas cujas chaves o filtro de Bloom garante inexistentes nem entram na consulta
+        List<BulkRow> uncertain = candidates.stream()
+                .filter(row -> !uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.CPF, row.user.getCpf())
+                        || !uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.EMAIL, row.user.getEmail()))
+                .toList();
+        if (uncertain.isEmpty()) {
+            return;
+        }
+
+        Set<String> cpfs = uncertain.stream().map(row -> row.user.getCpf()).collect(Collectors.toSet());
+        Set<String> emails = uncertain.stream().map(row -> row.user.getEmail()).collect(Collectors.toSet());
+        Set<String> existingCpfs = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        for (UserRepository.ExistingKeys keys : userRepository.findExistingKeys(cpfs, emails)) {
+            existingCpfs.add(keys.getCpf());
+            existingEmails.add(keys.getEmail());
+        }
+
+        for (BulkRow row : uncertain) {
+            if (existingCpfs.contains(row.user.getCpf())) {
+                row.reject("DUPLICATE_CPF", "CPF jÃ¡ cadastrado");
+            } else if (existingEmails.contains(row.user.getEmail())) {
+                row.reject("DUPLICATE_EMAIL", "Email jÃ¡ cadastrado");
+            }
+        }
+    }
+
+    // Cada CEP distinto do lote Ã© consultado uma vez, com concorrÃªncia limitada para nÃ£o esgotar o bulkhead do ViaCEP
+    private void resolveAddresses(List<BulkRow> candidates) {
+        Set<String> ceps = candidates.stream()
+                .filter(BulkRow::isPending)
+                .map(row -> row.user.getCep())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ceps.isEmpty()) {
+            return;
+        }
+
+        Map<String, CepDataDTO> addresses = new ConcurrentHashMap<>();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        Flux.fromIterable(ceps)
+                .flatMap(cep -> Mono.fromFuture(() -> cepService.validateAndFetchCepAsync(cep))
+                        .doOnNext(cepData -> addresses.put(cep, cepData))
+                        .onErrorResume(error -> {
+                            failures.put(cep, error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error);
+                            return Mono.empty();
+                        }), cepConcurrency)
+                .blockLast();
+
+        for (BulkRow row : candidates) {
+            if (!row.isPending()) {
+                continue;
+            }
+            CepDataDTO cepData = addresses.get(row.user.getCep());
+            if (cepData == null) {
+                Throwable failure = failures.get(row.user.getCep());
+                if (failure instanceof BusinessException businessException) {
+                    row.reject(businessException.getErrorCode(), businessException.getMessage());
+                } else {
+                    row.reject("CEP_LOOKUP_FAILED", "Falha ao consultar CEP");
+                }
+                continue;
+            }
+
+            row.user.setAddress(cepData.getLogradouro());
+            row.user.setCity(cepData.getLocalidade());
+            row.user.setState(cepData.getUf());
+            row.user.setNeighborhood(cepData.getBairro());
+            row.user.setComplement(cepData.getComplemento());
+            row.user.setAddressStatus(cepData.isDegraded() ? AddressStatus.PENDING : AddressStatus.ENRICHED);
+        }
+    }
+
+    private int insert(List<BulkRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(rows));
+        } catch (DataIntegrityViolationException e) {
+            // Outro cadastro concorrente gravou o mesmo CPF/email depois da verificaÃ§Ã£o; refaz linha a linha
+            log.warn("Lote de importaÃ§Ã£o violou restriÃ§Ã£o de unicidade; gravando {} linhas individualmente", rows.size());
+            for (BulkRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(row)));
+                } catch (DataIntegrityViolationException rowError) {
+                    row.reject("DUPLICATE_USER", "CPF ou email jÃ¡ cadastrado");
+                }
+            }
+        }
+        entityCacheService.evictQueryResults();
+
+        int inserted = 0;
+        for (BulkRow row : rows) {
+            if (row.user.getId() != null && row.isPending()) {
+                row.result = UserBulkRowResultDTO.builder()
+                        .line(row.line)
+                        .status(CREATED)
+                        .id(row.user.getId())
+                        .addressStatus(row.user.getAddressStatus().name())
+                        .build();
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    private void insertBatch(List<BulkRow> rows) {
+        // O JDBC nÃ£o passa pela auditoria do JPA: as datas sÃ£o preenchidas aqui
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] batch = new SqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            User user = rows.get(i).user;
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("name", user.getName())
+                    .addValue("email", user.getEmail())
+                    .addValue("cpf", user.getCpf())
+                    .addValue("cep", user.getCep())
+                    .addValue("address", user.getAddress())
+                    .addValue("city", user.getCity())
+                    .addValue("state", user.getState())
+                    .addValue("neighborhood", user.getNeighborhood())
+                    .addValue("complement", user.getComplement())
+                    .addValue("number", user.getNumber())
+                    .addValue("addressStatus", user.getAddressStatus().name())
+                    .addValue("createdAt", now)
+                    .addValue("updatedAt", now);
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, keyHolder, new String[]{"id"});
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            User user = rows.get(i).user;
+            user.setId(((Number) keys.get(i).get("id")).longValue());
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            uniqueKeyFilterService.add(UniqueKeyFilterService.Key.CPF, user.getCpf());
+            uniqueKeyFilterService.add(UniqueKeyFilterService.Key.EMAIL, user.getEmail());
+            if (user.getAddressStatus() == AddressStatus.PENDING) {
+                addressEnrichmentService.enqueue(user);
+            }
+        }
+        registrationStatsService.recordCreated(now, rows.size());
+    }
+
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write('\n');
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("users.bulk.rows", created, LongAdder::sum)
+                .tag("result", "created")
+                .description("Linhas de importaÃ§Ã£o em lote gravadas")
+                .register(registry);
+        FunctionCounter.builder("users.bulk.rows", rejected, LongAdder::sum)
+                .tag("result", "rejected")
+                .description("Linhas de importaÃ§Ã£o em lote rejeitadas")
+                .register(registry);
+    }
+
+    static final class BulkRow {
+
+        private final int line;
+        private final UserDTO dto;
+        private User user;
+        private UserBulkRowResultDTO result;
+
+        BulkRow(int line, UserDTO dto) {
+            this.line = line;
+            this.dto = dto;
+        }
+
+        static BulkRow invalid(int line, String errorCode, String message) {
+            BulkRow row = new BulkRow(line, null);
+            row.reject(errorCode, message);
+            return row;
+        }
+
+        boolean isPending() {
+            return result == null;
+        }
+
+        void reject(String errorCode, String message) {
+            result = UserBulkRowResultDTO.builder()
+                    .line(line)
+                    .status(REJECTED)
+                    .errorCode(errorCode)
+                    .message(message)
+                    .build();
+        }
+    }
+
+    private interface RowReader {
+        BulkRow next() throws IOException;
+    }
+
+    private final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private int line;
+
+        NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public BulkRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (line == 1 && !text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                    text = text.substring(1);
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new BulkRow(line, objectMapper.readValue(text, UserDTO.class));
+                } catch (JsonProcessingException e) {
+                    return BulkRow.invalid(line, "INVALID_ROW", "JSON invÃ¡lido: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class CsvRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private int line;
+        private boolean headerRead;
+        private char delimiter;
+        private int nameColumn = -1;
+        private int emailColumn = -1;
+        private int cpfColumn = -1;
+        private int cepColumn = -1;
+        private int numberColumn = -1;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public BulkRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (!headerRead) {
+                    readHeader(text);
+                    headerRead = true;
+                    continue;
+                }
+
+                List<String> values = CsvLines.split(text, delimiter);
+                return new BulkRow(line, UserDTO.builder()
+                        .name(value(values, nameColumn))
+                        .email(value(values, emailColumn))
+                        .cpf(value(values, cpfColumn))
+                        .cep(value(values, cepColumn))
+                        .number(value(values, numberColumn))
+                        .build());
+            }
+            return null;
+        }
+
+        private void readHeader(String header) {
+            if (header.charAt(0) == '\uFEFF') {
+                header = header.substring(1);
+            }
+            delimiter = header.indexOf(';') >= 0 ? ';' : ',';
+
+            List<String> columns = CsvLines.split(header, delimiter);
+            for (int i = 0; i < columns.size(); i++) {
+                switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "name", "nome" -> nameColumn = i;
+                    case "email" -> emailColumn = i;
+                    case "cpf" -> cpfColumn = i;
+                    case "cep" -> cepColumn = i;
+                    case "number", "numero" -> numberColumn = i;
+                    default -> { }
+                }
+            }
+
+            if (nameColumn < 0 || emailColumn < 0 || cpfColumn < 0 || cepColumn < 0) {
+                throw new BusinessException("CabeÃ§alho CSV deve conter as colunas name, email, cpf e cep");
+            }
+        }
+
+        private static String value(List<String> values, int column) {
+            if (column < 0 || column >= values.size()) {
+                return null;
+            }
+            String value = values.get(column).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
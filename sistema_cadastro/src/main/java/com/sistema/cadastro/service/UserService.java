@@ -1,19 +1,41 @@
 ﻿package com.sistema.cadastro.service;
 
 import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.dto.CursorPageDTO;
+import com.sistema.cadastro.dto.RegistrationBucketDTO;
 import com.sistema.cadastro.dto.UserDTO;
+import com.sistema.cadastro.entity.AddressStatus;
 import com.sistema.cadastro.entity.User;
 import com.sistema.cadastro.exception.BusinessException;
 import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.repository.EntityVersion;
+import com.sistema.cadastro.repository.FieldSet;
 import com.sistema.cadastro.repository.UserRepository;
+import com.sistema.cadastro.repository.UserSearchRepositoryImpl;
+import com.sistema.cadastro.util.DocumentCodec;
+import com.sistema.cadastro.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -21,33 +43,92 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final CepService cepService;
+    private final AddressEnrichmentService addressEnrichmentService;
+    private final UniqueKeyFilterService uniqueKeyFilterService;
+    private final RegistrationStatsService registrationStatsService;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("registrationExecutor")
+    private final Executor registrationExecutor;
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
-    @Transactional
-    public User createUser(UserDTO userDTO) {
+    // sync: consulta o CEP antes de gravar; async: grava com endereÃ§o PENDING e enriquece em segundo plano
+    @Value("${app.users.address-enrichment.mode:sync}")
+    private String addressEnrichmentMode;
+
+    public CompletableFuture<User> createUser(UserDTO userDTO) {
         log.info("Criando novo usuÃ¡rio: {}", userDTO.getEmail());
 
         validateUserCreation(userDTO);
 
-        CepDataDTO cepData = cepService.validateAndFetchCep(userDTO.getCep());
+        if ("async".equalsIgnoreCase(addressEnrichmentMode)) {
+            String cleanCep = DocumentCodec.digits(userDTO.getCep());
+            if (cleanCep.length() != 8) {
+                return CompletableFuture.failedFuture(new BusinessException("CEP deve ter 8 dÃ­gitos"));
+            }
+            return submitRegistration(() -> insertUser(userDTO, status -> persistPendingUser(userDTO)));
+        }
+
+        return cepService.validateAndFetchCepAsync(userDTO.getCep())
+                .thenCompose(cepData -> submitRegistration(
+                        () -> insertUser(userDTO, status -> persistNewUser(userDTO, cepData))));
+    }
 
+    // A gravaÃ§Ã£o sempre roda no registrationExecutor, nunca na thread que completou a consulta do CEP (que pode ser
+    // do Reactor). Fila cheia recusa o cadastro com 503 em vez de executar o INSERT em quem chamou
+    private CompletableFuture<User> submitRegistration(Supplier<User> registration) {
+        try {
+            return CompletableFuture.supplyAsync(registration, registrationExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de cadastros cheia; cadastro recusado");
+            return CompletableFuture.failedFuture(new BusinessException(
+                    "ServiÃ§o de cadastro sobrecarregado; tente novamente em instantes",
+                    HttpStatus.SERVICE_UNAVAILABLE, "REGISTRATION_OVERLOADED", e));
+        }
+    }
+
+    private User persistNewUser(UserDTO userDTO, CepDataDTO cepData) {
         User user = new User();
         user.setName(userDTO.getName());
         user.setEmail(userDTO.getEmail().toLowerCase().trim());
-        user.setCpf(userDTO.getCpf().replaceAll("\\D", ""));
-        user.setCep(userDTO.getCep().replaceAll("\\D", ""));
+        user.setCpf(DocumentCodec.digits(userDTO.getCpf()));
+        user.setCep(DocumentCodec.digits(userDTO.getCep()));
         user.setAddress(cepData.getLogradouro());
         user.setCity(cepData.getLocalidade());
         user.setState(cepData.getUf());
         user.setNeighborhood(cepData.getBairro());
         user.setComplement(cepData.getComplemento());
+        user.setAddressStatus(cepData.isDegraded() ? AddressStatus.PENDING : AddressStatus.ENRICHED);
         
         User savedUser = userRepository.save(user);
+        registerUniqueKeys(savedUser);
+        registrationStatsService.recordCreated(savedUser.getCreatedAt(), 1);
         log.info("UsuÃ¡rio criado com sucesso: ID {}", savedUser.getId());
+        if (cepData.isDegraded()) {
+            log.warn("UsuÃ¡rio {} cadastrado sem logradouro/bairro: CEP {} resolvido apenas por faixa",
+                    savedUser.getId(), savedUser.getCep());
+            addressEnrichmentService.enqueue(savedUser);
+        }
         
         return savedUser;
     }
 
+    private User persistPendingUser(UserDTO userDTO) {
+        User user = new User();
+        user.setName(userDTO.getName());
+        user.setEmail(userDTO.getEmail().toLowerCase().trim());
+        user.setCpf(DocumentCodec.digits(userDTO.getCpf()));
+        user.setCep(DocumentCodec.digits(userDTO.getCep()));
+        user.setAddressStatus(AddressStatus.PENDING);
+
+        User savedUser = userRepository.save(user);
+        registerUniqueKeys(savedUser);
+        registrationStatsService.recordCreated(savedUser.getCreatedAt(), 1);
+        addressEnrichmentService.enqueue(savedUser);
+        log.info("UsuÃ¡rio criado com sucesso: ID {}; endereÃ§o serÃ¡ enriquecido em segundo plano", savedUser.getId());
+
+        return savedUser;
+    }
+
     @Transactional(readOnly = true)
     public User getUserById(Long id) {
         log.info("Buscando usuÃ¡rio por ID: {}", id);
@@ -56,6 +137,12 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("UsuÃ¡rio", "id", id));
     }
 
+    @Transactional(readOnly = true)
+    public EntityVersion getUserVersion(Long id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("UsuÃ¡rio", "id", id));
+    }
+
     @Transactional(readOnly = true)
     public Page<User> getAllUsers(Pageable pageable) {
         log.info("Listando usuÃ¡rios com paginaÃ§Ã£o: pÃ¡gina {}, tamanho {}", 
@@ -72,11 +159,85 @@ public class UserService {
         return userRepository.findByFilters(name, email, cpf, city, state, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<User> getUsersAfter(String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        log.info("Listando usuÃ¡rios por cursor: apÃ³s {}/{}, tamanho {}", cursor.getCreatedAt(), cursor.getId(), size);
+
+        List<User> rows = userRepository.findPageAfter(cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        return CursorPageDTO.of(rows, size, UserService::positionOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<User> getUsersByFiltersAfter(String name, String email, String cpf, String city, String state,
+                                                      String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        log.info("Buscando usuÃ¡rios com filtros por cursor: nome={}, email={}, cpf={}, cidade={}, estado={}",
+                name, email, cpf, city, state);
+
+        List<User> rows = userRepository.findByFiltersAfter(name, email, cpf, city, state,
+                cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        return CursorPageDTO.of(rows, size, UserService::positionOf);
+    }
+
+    private static KeysetCursor positionOf(User user) {
+        return new KeysetCursor(user.getCreatedAt(), user.getId());
+    }
+
+    // VariaÃ§Ãµes com ?fields=: SELECT sÃ³ das colunas pedidas, devolvidas como Map sem carregar a entidade
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserFieldsById(Long id, String fields) {
+        log.info("Buscando usuÃ¡rio por ID: {}, campos {}", id, fields);
+
+        return userRepository.findFieldsById(id, UserSearchRepositoryImpl.fieldSet(fields))
+                .orElseThrow(() -> new ResourceNotFoundException("UsuÃ¡rio", "id", id));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getAllUserFields(String fields, Pageable pageable) {
+        return getUserFieldsByFilters(null, null, null, null, null, fields, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getUserFieldsByFilters(String name, String email, String cpf, String city, String state,
+                                                            String fields, Pageable pageable) {
+        log.info("Buscando usuÃ¡rios com filtros: nome={}, email={}, cpf={}, cidade={}, estado={}, campos {}",
+                name, email, cpf, city, state, fields);
+
+        return userRepository.findFieldsByFilters(name, email, cpf, city, state,
+                UserSearchRepositoryImpl.fieldSet(fields), pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Map<String, Object>> getUserFieldsAfter(String fields, String after, int size) {
+        return getUserFieldsByFiltersAfter(null, null, null, null, null, fields, after, size);
+    }
+
+    // created_at e id entram no SELECT para montar o cursor e saem da resposta se nÃ£o foram pedidos
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Map<String, Object>> getUserFieldsByFiltersAfter(String name, String email, String cpf, String city,
+                                                                          String state, String fields, String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        FieldSet requested = UserSearchRepositoryImpl.fieldSet(fields);
+        log.info("Buscando usuÃ¡rios com filtros por cursor: nome={}, email={}, cpf={}, cidade={}, estado={}, campos {}",
+                name, email, cpf, city, state, requested);
+
+        List<Map<String, Object>> rows = userRepository.findFieldsByFiltersAfter(name, email, cpf, city, state,
+                requested.with("createdAt", "id"), cursor.getCreatedAt(), cursor.getId(), KeysetCursor.fetchLimit(size));
+        CursorPageDTO<Map<String, Object>> page = CursorPageDTO.of(rows, size, UserService::positionOf);
+        page.getContent().forEach(requested::retain);
+        return page;
+    }
+
+    private static KeysetCursor positionOf(Map<String, Object> row) {
+        return new KeysetCursor((LocalDateTime) row.get("createdAt"), ((Number) row.get("id")).longValue());
+    }
+
     @Transactional(readOnly = true)
     public User getUserByCpf(String cpf) {
         log.info("Buscando usuÃ¡rio por CPF: {}", cpf);
         
-        String cleanCpf = cpf.replaceAll("\\D", "");
+        String cleanCpf = DocumentCodec.digits(cpf);
         
         return userRepository.findByCpf(cleanCpf)
                 .orElseThrow(() -> new ResourceNotFoundException("UsuÃ¡rio", "CPF", cpf));
@@ -100,18 +261,28 @@ public class UserService {
 
         validateUserUpdate(id, userDTO);
 
-        if (!existingUser.getCep().equals(userDTO.getCep().replaceAll("\\D", ""))) {
+        if (!existingUser.getCep().equals(DocumentCodec.digits(userDTO.getCep()))) {
             CepDataDTO cepData = cepService.validateAndFetchCep(userDTO.getCep());
-            existingUser.setCep(userDTO.getCep().replaceAll("\\D", ""));
+            existingUser.setCep(DocumentCodec.digits(userDTO.getCep()));
             existingUser.setAddress(cepData.getLogradouro());
             existingUser.setCity(cepData.getLocalidade());
             existingUser.setState(cepData.getUf());
             existingUser.setNeighborhood(cepData.getBairro());
             existingUser.setComplement(cepData.getComplemento());
+            existingUser.setAddressStatus(cepData.isDegraded() ? AddressStatus.PENDING : AddressStatus.ENRICHED);
+            if (cepData.isDegraded()) {
+                addressEnrichmentService.enqueue(existingUser);
+            }
+        }
+
+        String cleanEmail = userDTO.getEmail().toLowerCase().trim();
+        if (!cleanEmail.equals(existingUser.getEmail())) {
+            uniqueKeyFilterService.markRemoved(UniqueKeyFilterService.Key.EMAIL, existingUser.getEmail());
+            uniqueKeyFilterService.add(UniqueKeyFilterService.Key.EMAIL, cleanEmail);
         }
 
         existingUser.setName(userDTO.getName());
-        existingUser.setEmail(userDTO.getEmail().toLowerCase().trim());
+        existingUser.setEmail(cleanEmail);
         existingUser.setNumber(userDTO.getNumber());
         
         User updatedUser = userRepository.save(existingUser);
@@ -126,48 +297,89 @@ public class UserService {
         
         User user = getUserById(id);
         userRepository.delete(user);
+        uniqueKeyFilterService.markRemoved(UniqueKeyFilterService.Key.CPF, user.getCpf());
+        uniqueKeyFilterService.markRemoved(UniqueKeyFilterService.Key.EMAIL, user.getEmail());
+        registrationStatsService.recordDeleted(user.getCreatedAt());
         
         log.info("UsuÃ¡rio deletado com sucesso: ID {}", id);
     }
 
-    @Transactional(readOnly = true)
+    // Somas sobre os contadores por bucket de RegistrationStatsService, sem COUNT sobre users
     public long countUsersCreatedToday() {
-        return userRepository.countUsersCreatedToday();
+        return registrationStatsService.countToday();
     }
 
-    @Transactional(readOnly = true)
     public long countUsersCreatedLastWeek() {
-        return userRepository.countUsersCreatedLastWeek();
+        return registrationStatsService.countLast(Duration.ofDays(7));
     }
 
-    @Transactional(readOnly = true)
     public long countUsersCreatedLastMonth() {
-        return userRepository.countUsersCreatedLastMonth();
+        return registrationStatsService.countLast(Duration.ofDays(30));
+    }
+
+    public List<RegistrationBucketDTO> getRegistrationHistogram(LocalDateTime from, LocalDateTime to,
+                                                                RegistrationStatsService.Bucket bucket) {
+        return registrationStatsService.histogram(from, to, bucket);
     }
 
     private void validateUserCreation(UserDTO userDTO) {
 
-        String cleanCpf = userDTO.getCpf().replaceAll("\\D", "");
-        if (userRepository.existsByCpf(cleanCpf)) {
-            throw new BusinessException("CPF jÃ¡ cadastrado", HttpStatus.CONFLICT, "DUPLICATE_CPF");
+        String cleanCpf = DocumentCodec.digits(userDTO.getCpf());
+        String cleanEmail = userDTO.getEmail().toLowerCase().trim();
+        boolean cpfAbsent = uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.CPF, cleanCpf);
+        boolean emailAbsent = uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.EMAIL, cleanEmail);
+        if (cpfAbsent && emailAbsent) {
+            return;
         }
 
-        String cleanEmail = userDTO.getEmail().toLowerCase().trim();
-        if (userRepository.existsByEmail(cleanEmail)) {
+        rejectDuplicates(userRepository.findUniqueKeyConflicts(cleanCpf, cleanEmail, 0L));
+        if (!cpfAbsent) {
+            uniqueKeyFilterService.recordFalsePositive(UniqueKeyFilterService.Key.CPF);
+        }
+        if (!emailAbsent) {
+            uniqueKeyFilterService.recordFalsePositive(UniqueKeyFilterService.Key.EMAIL);
+        }
+    }
+
+    private void rejectDuplicates(UserRepository.UniqueKeyConflicts conflicts) {
+        if (conflicts.isCpfTaken()) {
+            throw new BusinessException("CPF jÃ¡ cadastrado", HttpStatus.CONFLICT, "DUPLICATE_CPF");
+        }
+        if (conflicts.isEmailTaken()) {
             throw new BusinessException("Email jÃ¡ cadastrado", HttpStatus.CONFLICT, "DUPLICATE_EMAIL");
         }
     }
 
+    // Outra instÃ¢ncia pode ter gravado o mesmo CPF/email depois da verificaÃ§Ã£o, ou o filtro local ainda nÃ£o conhecer a chave:
+    // a restriÃ§Ã£o Ãºnica do banco Ã© a garantia final e sua violaÃ§Ã£o volta com os mesmos cÃ³digos de erro
+    private User insertUser(UserDTO userDTO, TransactionCallback<User> insert) {
+        try {
+            return transactionTemplate.execute(insert);
+        } catch (DataIntegrityViolationException e) {
+            rejectDuplicates(findUniqueKeyConflicts(userDTO, 0L));
+            throw e;
+        }
+    }
+
+    private void registerUniqueKeys(User user) {
+        uniqueKeyFilterService.add(UniqueKeyFilterService.Key.CPF, user.getCpf());
+        uniqueKeyFilterService.add(UniqueKeyFilterService.Key.EMAIL, user.getEmail());
+    }
+
     private void validateUserUpdate(Long id, UserDTO userDTO) {
 
-        String cleanCpf = userDTO.getCpf().replaceAll("\\D", "");
-        if (userRepository.findByCpfAndIdNot(cleanCpf, id).isPresent()) {
+        UserRepository.UniqueKeyConflicts conflicts = findUniqueKeyConflicts(userDTO, id);
+        if (conflicts.isCpfTaken()) {
             throw new BusinessException("CPF jÃ¡ cadastrado para outro usuÃ¡rio", HttpStatus.CONFLICT, "DUPLICATE_CPF");
         }
-
-        String cleanEmail = userDTO.getEmail().toLowerCase().trim();
-        if (userRepository.findByEmailAndIdNot(cleanEmail, id).isPresent()) {
+        if (conflicts.isEmailTaken()) {
             throw new BusinessException("Email jÃ¡ cadastrado para outro usuÃ¡rio", HttpStatus.CONFLICT, "DUPLICATE_EMAIL");
         }
     }
+
+    private UserRepository.UniqueKeyConflicts findUniqueKeyConflicts(UserDTO userDTO, long excludeId) {
+        String cleanCpf = DocumentCodec.digits(userDTO.getCpf());
+        String cleanEmail = userDTO.getEmail().toLowerCase().trim();
+        return userRepository.findUniqueKeyConflicts(cleanCpf, cleanEmail, excludeId);
+    }
 }
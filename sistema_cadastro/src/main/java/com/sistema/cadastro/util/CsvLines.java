@@ -0,0 +1,40 @@
+﻿package com.sistema.cadastro.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CsvLines {
+
+    private CsvLines() {
+    }
+
+    // Divide uma linha CSV no delimitador; campos entre aspas podem conter o delimitador e "" vira uma aspa
+    public static List<String> split(String line, char delimiter) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,141 @@
+﻿package com.sistema.cadastro.util;
+
+public final class DocumentCodec {
+
+    public static final int CPF_LENGTH = 11;
+    public static final int CEP_LENGTH = 8;
+
+    private DocumentCodec() {
+    }
+
+    // Mesmo resultado de replaceAll("\\D", "") sem regex: entrada jÃ¡ normalizada volta como estÃ¡, sem nova String
+    public static String digits(String value) {
+        int length = value.length();
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (isDigit(value.charAt(i))) {
+                count++;
+            }
+        }
+        if (count == length) {
+            return value;
+        }
+
+        char[] digits = new char[count];
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isDigit(c)) {
+                digits[position++] = c;
+            }
+        }
+        return new String(digits);
+    }
+
+    // Valida os dÃ­gitos verificadores numa Ãºnica passada, ignorando pontuaÃ§Ã£o (123.456.789-09)
+    public static boolean isValidCpf(String value) {
+        if (value == null) {
+            return false;
+        }
+
+        int count = 0;
+        int first = -1;
+        boolean allEqual = true;
+        int firstSum = 0;
+        int secondSum = 0;
+        int firstCheck = 0;
+        int secondCheck = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                continue;
+            }
+            if (count == CPF_LENGTH) {
+                return false;
+            }
+
+            int digit = c - '0';
+            if (count == 0) {
+                first = digit;
+            } else if (digit != first) {
+                allEqual = false;
+            }
+            if (count < 9) {
+                firstSum += digit * (10 - count);
+            } else if (count == 9) {
+                firstCheck = digit;
+            } else {
+                secondCheck = digit;
+            }
+            if (count < 10) {
+                secondSum += digit * (11 - count);
+            }
+            count++;
+        }
+
+        if (count != CPF_LENGTH || allEqual) {
+            return false;
+        }
+        return firstCheck == checkDigit(firstSum) && secondCheck == checkDigit(secondSum);
+    }
+
+    // CPF como long (atÃ© 11 dÃ­gitos cabem folgados) para uso como chave de cache ou Ã­ndice; -1 se nÃ£o tiver 11 dÃ­gitos
+    public static long packCpf(String value) {
+        return pack(value, CPF_LENGTH);
+    }
+
+    public static int packCep(String value) {
+        return (int) pack(value, CEP_LENGTH);
+    }
+
+    public static String unpackCpf(long packed) {
+        return unpack(packed, CPF_LENGTH);
+    }
+
+    public static String unpackCep(int packed) {
+        return unpack(packed, CEP_LENGTH);
+    }
+
+    private static long pack(String value, int length) {
+        if (value == null) {
+            return -1;
+        }
+        long packed = 0;
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isDigit(c)) {
+                if (++count > length) {
+                    return -1;
+                }
+                packed = packed * 10 + (c - '0');
+            }
+        }
+        return count == length ? packed : -1;
+    }
+
+    private static String unpack(long packed, int length) {
+        if (packed < 0) {
+            throw new IllegalArgumentException("Valor empacotado invÃ¡lido: " + packed);
+        }
+        char[] digits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + packed % 10);
+            packed /= 10;
+        }
+        if (packed != 0) {
+            throw new IllegalArgumentException("Valor empacotado excede " + length + " dÃ­gitos");
+        }
+        return new String(digits);
+    }
+
+    private static int checkDigit(int sum) {
+        int digit = 11 - (sum % 11);
+        return digit >= 10 ? 0 : digit;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,64 @@
+﻿package com.sistema.cadastro.util;
+
+import org.springframework.data.domain.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+// ETags fortes a partir de (id, updated_at): mudam a cada escrita sem depender do corpo serializado
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Long id, LocalDateTime updatedAt) {
+        return Long.toString(id, 36) + "-" + Long.toString(micros(updatedAt), 36);
+    }
+
+    // A auditoria grava updated_at com LocalDateTime.now(), no fuso da JVM; -1 deixa o cabeÃ§alho de fora
+    public static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    // Sem Last-Modified em pÃ¡ginas: uma exclusÃ£o nÃ£o aumenta o maior updated_at, mas muda os ids e o total do hash
+    public static <T> String ofPage(Page<T> page, Function<T, Long> id, Function<T, LocalDateTime> updatedAt) {
+        return ofContent(page.getContent(), id, updatedAt,
+                page.getNumber(), page.getSize(), page.getTotalElements(), page.getSort());
+    }
+
+    // metadata: o que, alÃ©m dos itens, aparece no corpo (nÃºmero da pÃ¡gina, total, prÃ³ximo cursor)
+    public static <T> String ofContent(List<T> content, Function<T, Long> id, Function<T, LocalDateTime> updatedAt,
+                                       Object... metadata) {
+        MessageDigest digest = sha256();
+        for (Object value : metadata) {
+            digest.update((value + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        for (T item : content) {
+            digest.update((of(id.apply(item), updatedAt.apply(item)) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    // Mesma precisÃ£o do timestamp do PostgreSQL: o valor em memÃ³ria e o relido do banco geram a mesma tag
+    private static long micros(LocalDateTime value) {
+        if (value == null) {
+            return 0;
+        }
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + value.getNano() / 1_000;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponÃ­vel", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+﻿package com.sistema.cadastro.util;
+
+import com.sistema.cadastro.exception.BusinessException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// PosiÃ§Ã£o (created_at, id) do Ãºltimo registro entregue; o cliente recebe apenas o texto opaco em base64
+public final class KeysetCursor {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Anterior a qualquer registro: a primeira pÃ¡gina usa a mesma consulta por faixa das demais
+    public static final KeysetCursor START = new KeysetCursor(LocalDateTime.of(1, 1, 1, 0, 0), 0L);
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime createdAt;
+    private final long id;
+
+    public KeysetCursor(LocalDateTime createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor vazio ou ausente inicia a navegaÃ§Ã£o
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Separador ausente");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("Cursor de paginaÃ§Ã£o invÃ¡lido", HttpStatus.BAD_REQUEST, "INVALID_CURSOR", e);
+        }
+    }
+
+    // Busca um registro alÃ©m do tamanho pedido para saber se existe prÃ³xima pÃ¡gina sem COUNT
+    public static int fetchLimit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("Tamanho da pÃ¡gina deve estar entre 1 e " + MAX_PAGE_SIZE,
+                    HttpStatus.BAD_REQUEST, "INVALID_PAGE_SIZE");
+        }
+        return size + 1;
+    }
+}
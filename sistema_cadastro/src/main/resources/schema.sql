@@ -0,0 +1,19 @@
+-- Executado depois do Hibernate (spring.jpa.defer-datasource-initialization) e seguro para repetir a cada subida.
+
+-- Busca por substring em usuários: LOWER(coluna) LIKE '%termo%' não usa B-tree; os índices de trigramas
+-- atendem exatamente a expressão gerada por SearchQuery.contains. CONCURRENTLY evita bloquear escritas
+-- na primeira criação; se ela for interrompida, remova o índice inválido (DROP INDEX) antes de subir de novo.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_name_trgm ON users USING gin (LOWER(name) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_trgm ON users USING gin (LOWER(email) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_city_trgm ON users USING gin (LOWER(city) gin_trgm_ops);
+
+-- Cadastros por hora (HOUR) e por dia (DAY), mantidos por RegistrationStatsService: as estatísticas de
+-- usuários somam poucos buckets em vez de contar a tabela users no intervalo inteiro.
+CREATE TABLE IF NOT EXISTS user_registration_stats (
+    granularity VARCHAR(4) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    registrations BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start)
+);
@@ -0,0 +1,149 @@
+﻿package com.sistema.cadastro.benchmark;
+
+import com.sistema.cadastro.client.CepClient;
+import com.sistema.cadastro.dataset.CepDatasetImporter;
+import com.sistema.cadastro.dataset.CepDatasetIndex;
+import com.sistema.cadastro.dataset.CepRangeTable;
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compara a consulta na base local mapeada em memÃ³ria com o caminho HTTP (CepClient contra um servidor
+// local que responde sempre o mesmo JSON, ou seja, sem a latÃªncia real do ViaCEP). Executar pelo main().
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CepLookupBenchmark {
+
+    private static final String RESPONSE = "{\"cep\":\"01001-000\",\"logradouro\":\"PraÃ§a da SÃ©\","
+            + "\"bairro\":\"SÃ©\",\"localidade\":\"SÃ£o Paulo\",\"uf\":\"SP\"}";
+
+    @Param({"1000000"})
+    private int datasetSize;
+
+    private Path directory;
+    private CepDatasetIndex index;
+    private CepRangeTable ranges;
+    private String[] ceps;
+    private HttpServer server;
+    private CepClient cepClient;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("cep-benchmark");
+        Path csv = directory.resolve("ceps.csv");
+        Path binary = directory.resolve("ceps.bin");
+
+        ceps = new String[datasetSize];
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("cep;logradouro;bairro;localidade;uf\n");
+            for (int i = 0; i < datasetSize; i++) {
+                String cep = String.format("%08d", 1000000 + i * 37);
+                ceps[i] = cep;
+                writer.write(cep + ";Rua " + (i % 5000) + ";Bairro " + (i % 800) + ";Cidade " + (i % 300)
+                        + ";SP\n");
+            }
+        }
+
+        CepDatasetImporter.importFile(csv, binary);
+        index = CepDatasetIndex.open(binary);
+
+        // ~5.500 faixas contÃ­guas, da ordem de grandeza das localidades brasileiras
+        Path rangesFile = directory.resolve("faixas.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(rangesFile, StandardCharsets.UTF_8)) {
+            for (int start = 1000000; start < 100000000 - 18000; start += 18000) {
+                writer.write(String.format("%08d;%08d;Cidade %d;SP%n", start, start + 17999, start / 18000));
+            }
+        }
+        ranges = CepRangeTable.load(rangesFile);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .build();
+        cepClient = new CepClient(webClient, CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults());
+        ReflectionTestUtils.setField(cepClient, "timeout", 5000);
+        ReflectionTestUtils.setField(cepClient, "attemptTimeout", 5000L);
+        ReflectionTestUtils.setField(cepClient, "maxRetryAttempts", 0);
+        ReflectionTestUtils.setField(cepClient, "backoffDelay", 1L);
+        ReflectionTestUtils.invokeMethod(cepClient, "init");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.stop(0);
+        Files.deleteIfExists(directory.resolve("ceps.csv"));
+        Files.deleteIfExists(directory.resolve("ceps.bin"));
+        Files.deleteIfExists(directory.resolve("faixas.csv"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int datasetIndexOf() {
+        return index.indexOf(1000000 + ThreadLocalRandom.current().nextInt(datasetSize) * 37);
+    }
+
+    @Benchmark
+    public CepDataDTO datasetFind() {
+        return index.find(ceps[ThreadLocalRandom.current().nextInt(datasetSize)]);
+    }
+
+    @Benchmark
+    public CepDataDTO rangeResolve() {
+        return ranges.resolve(ceps[ThreadLocalRandom.current().nextInt(datasetSize)]);
+    }
+
+    @Benchmark
+    public CepDataDTO httpClient() {
+        return cepClient.getCepDataAsync(ceps[ThreadLocalRandom.current().nextInt(datasetSize)]).block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CepLookupBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,118 @@
+﻿package com.sistema.cadastro.benchmark;
+
+import com.sistema.cadastro.util.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Compara a normalizaÃ§Ã£o/validaÃ§Ã£o anterior (replaceAll + validaÃ§Ã£o do CPF sobre a String limpa) com o DocumentCodec,
+// para entradas jÃ¡ limpas e formatadas. Rodar com -prof gc para ver a alocaÃ§Ã£o por operaÃ§Ã£o. Executar pelo main().
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentCodecBenchmark {
+
+    @Param({"52998224725", "529.982.247-25"})
+    private String cpf;
+
+    private String cep;
+
+    @Setup
+    public void setup() {
+        cep = cpf.length() == 11 ? "01001000" : "01001-000";
+    }
+
+    @Benchmark
+    public boolean legacyCpf() {
+        String cleanCpf = cpf.replaceAll("\\D", "");
+        return legacyIsValidCpf(cleanCpf);
+    }
+
+    @Benchmark
+    public boolean codecCpf() {
+        String cleanCpf = DocumentCodec.digits(cpf);
+        return DocumentCodec.isValidCpf(cleanCpf);
+    }
+
+    @Benchmark
+    public boolean codecCpfValidateOnly() {
+        return DocumentCodec.isValidCpf(cpf);
+    }
+
+    @Benchmark
+    public String legacyCep() {
+        return cep.replaceAll("\\D", "");
+    }
+
+    @Benchmark
+    public String codecCep() {
+        return DocumentCodec.digits(cep);
+    }
+
+    @Benchmark
+    public long codecPackCpf() {
+        return DocumentCodec.packCpf(cpf);
+    }
+
+    // CÃ³pia da validaÃ§Ã£o que ficava em User.isValidCpf, mantida apenas como referÃªncia
+    private static boolean legacyIsValidCpf(String cpf) {
+        cpf = cpf.replaceAll("\\D", "");
+        if (cpf.length() != 11) {
+            return false;
+        }
+
+        boolean allDigitsEqual = true;
+        for (int i = 1; i < cpf.length(); i++) {
+            if (cpf.charAt(i) != cpf.charAt(0)) {
+                allDigitsEqual = false;
+                break;
+            }
+        }
+        if (allDigitsEqual) {
+            return false;
+        }
+
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (cpf.charAt(i) - '0') * (10 - i);
+        }
+        int firstDigit = 11 - (sum % 11);
+        if (firstDigit >= 10) {
+            firstDigit = 0;
+        }
+
+        sum = 0;
+        for (int i = 0; i < 10; i++) {
+            sum += (cpf.charAt(i) - '0') * (11 - i);
+        }
+        int secondDigit = 11 - (sum % 11);
+        if (secondDigit >= 10) {
+            secondDigit = 0;
+        }
+
+        return cpf.charAt(9) - '0' == firstDigit && cpf.charAt(10) - '0' == secondDigit;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DocumentCodecBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
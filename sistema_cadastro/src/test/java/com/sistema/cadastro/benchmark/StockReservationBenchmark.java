@@ -0,0 +1,140 @@
+﻿package com.sistema.cadastro.benchmark;
+
+import com.sistema.cadastro.dto.StockReservationItemDTO;
+import com.sistema.cadastro.dto.StockReservationLineDTO;
+import com.sistema.cadastro.service.EntityCacheService;
+import com.sistema.cadastro.service.StockReservationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+// Reservas concorrentes (8 threads) de itens sorteados entre poucos produtos, como numa promoÃ§Ã£o relÃ¢mpago.
+// "reservation" Ã© o caminho de POST /api/products/stock/reservations: SELECT ... FOR UPDATE em ordem de id e um
+// UPDATE em lote, tudo ou nada. "itemByItem" Ã© o que o checkout fazia antes, um PATCH de estoque (UPDATE condicional
+// em autocommit) por item. Sobe um container via Testcontainers; -Dbenchmark.jdbc.url (com benchmark.jdbc.user e
+// benchmark.jdbc.password) aponta para um banco existente. Executar pelo main().
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    // Quanto menor, mais reservas disputam as mesmas linhas
+    @Param({"20", "1000"})
+    private int hotProducts;
+
+    @Param({"5", "50"})
+    private int itemsPerReservation;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private StockReservationService stockReservationService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = new HikariDataSource();
+        String url = System.getProperty("benchmark.jdbc.url");
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            dataSource.setJdbcUrl(postgres.getJdbcUrl());
+            dataSource.setUsername(postgres.getUsername());
+            dataSource.setPassword(postgres.getPassword());
+        } else {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(System.getProperty("benchmark.jdbc.user"));
+            dataSource.setPassword(System.getProperty("benchmark.jdbc.password"));
+        }
+        dataSource.setMaximumPoolSize(8);
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+
+        jdbc.getJdbcTemplate().execute("DROP TABLE IF EXISTS products");
+        jdbc.getJdbcTemplate().execute("""
+                CREATE TABLE products (
+                    id BIGSERIAL PRIMARY KEY,
+                    sku VARCHAR(50) NOT NULL UNIQUE,
+                    stock INTEGER NOT NULL,
+                    updated_at TIMESTAMP
+                )""");
+        // Estoque que nÃ£o se esgota durante a mediÃ§Ã£o: o custo medido Ã© o da disputa, nÃ£o o da recusa
+        jdbc.getJdbcTemplate().execute("INSERT INTO products (sku, stock) SELECT 'SKU-' || i, 1000000000 " +
+                "FROM generate_series(1, " + hotProducts + ") AS i");
+
+        // Sem cache de segundo nÃ­vel fora do Spring; stubOnly nÃ£o acumula o histÃ³rico de chamadas
+        EntityCacheService entityCacheService = mock(EntityCacheService.class, withSettings().stubOnly());
+        stockReservationService = new StockReservationService(jdbc,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), entityCacheService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    public List<StockReservationLineDTO> reservation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<StockReservationItemDTO> items = new ArrayList<>(itemsPerReservation);
+        for (int i = 0; i < itemsPerReservation; i++) {
+            long id = 1 + random.nextInt(hotProducts);
+            items.add(random.nextBoolean()
+                    ? StockReservationItemDTO.builder().productId(id).quantity(1).build()
+                    : StockReservationItemDTO.builder().sku("SKU-" + id).quantity(1).build());
+        }
+        return stockReservationService.reserve(items);
+    }
+
+    @Benchmark
+    public int itemByItem() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int updated = 0;
+        for (int i = 0; i < itemsPerReservation; i++) {
+            updated += jdbc.update("UPDATE products SET stock = stock - :quantity, updated_at = LOCALTIMESTAMP " +
+                            "WHERE id = :id AND stock >= :quantity",
+                    new MapSqlParameterSource("id", 1L + random.nextInt(hotProducts)).addValue("quantity", 1));
+        }
+        return updated;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StockReservationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,159 @@
+﻿package com.sistema.cadastro.benchmark;
+
+import com.sistema.cadastro.repository.SearchQuery;
+import com.sistema.cadastro.repository.UserSearchRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Executa a busca de /api/users/search (o SQL que UserSearchRepositoryImpl gera para o filtro, pÃ¡gina + COUNT) num
+// PostgreSQL com 1M de usuÃ¡rios. "seqscan" desliga bitmap scans na sessÃ£o e reproduz o plano sem os Ã­ndices de
+// trigramas; "trigram" usa o schema.sql. Sobe um container via Testcontainers; -Dbenchmark.jdbc.url (com
+// benchmark.jdbc.user e benchmark.jdbc.password) aponta para um banco existente. Executar pelo main().
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"seqscan", "trigram"})
+    private String plan;
+
+    // campo=termo; todos seletivos, onde o Ã­ndice faz diferenÃ§a
+    @Param({"name=ea90622f", "email=usuario424242@", "city=cidade 4242"})
+    private String filter;
+
+    private PostgreSQLContainer<?> postgres;
+    private SingleConnectionDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private String pageSql;
+    private String countSql;
+    private MapSqlParameterSource params;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String url = System.getProperty("benchmark.jdbc.url");
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), true);
+        } else {
+            dataSource = new SingleConnectionDataSource(url, System.getProperty("benchmark.jdbc.user"),
+                    System.getProperty("benchmark.jdbc.password"), true);
+        }
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+
+        Connection connection = dataSource.getConnection();
+        seed(connection);
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE users");
+            statement.execute("SET enable_bitmapscan = " + ("seqscan".equals(plan) ? "off" : "on"));
+        }
+
+        String[] parts = filter.split("=", 2);
+        SearchQuery query = UserSearchRepositoryImpl.filters(
+                "name".equals(parts[0]) ? parts[1] : null,
+                "email".equals(parts[0]) ? parts[1] : null,
+                null,
+                "city".equals(parts[0]) ? parts[1] : null,
+                null);
+        pageSql = query.pageSql(Sort.unsorted());
+        countSql = query.countSql();
+        params = new MapSqlParameterSource(query.parameters())
+                .addValue("limit", 20)
+                .addValue("offset", 0L);
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS users (
+                        id BIGSERIAL PRIMARY KEY,
+                        name VARCHAR(100) NOT NULL,
+                        email VARCHAR(100) NOT NULL UNIQUE,
+                        cpf VARCHAR(11) NOT NULL UNIQUE,
+                        cep VARCHAR(8) NOT NULL,
+                        address VARCHAR(200),
+                        city VARCHAR(100),
+                        state VARCHAR(2),
+                        neighborhood VARCHAR(100),
+                        complement VARCHAR(50),
+                        number VARCHAR(10),
+                        address_status VARCHAR(20),
+                        created_at TIMESTAMP NOT NULL,
+                        updated_at TIMESTAMP
+                    )""");
+            statement.execute("""
+                    INSERT INTO users (name, email, cpf, cep, city, state, created_at)
+                    SELECT (ARRAY['Ana', 'Bruno', 'Carla', 'Diego', 'Elisa', 'FÃ¡bio', 'Gabriela', 'Heitor'])[1 + i % 8]
+                               || ' ' || (ARRAY['Silva', 'Souza', 'Oliveira', 'Pereira', 'Costa', 'Almeida'])[1 + i % 6]
+                               || ' ' || LEFT(MD5(i::text), 8),
+                           'usuario' || i || '@' || (ARRAY['gmail.com', 'hotmail.com', 'empresa.com.br'])[1 + i % 3],
+                           LPAD(i::text, 11, '0'),
+                           LPAD((i % 100000000)::text, 8, '0'),
+                           'Cidade ' || (i % 5000),
+                           'SP',
+                           NOW() - i * INTERVAL '1 second'
+                    FROM generate_series((SELECT COUNT(*) + 1 FROM users), %d) AS i""".formatted(users));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    public List<Long> searchPage() {
+        return jdbc.query(pageSql, params, (rs, row) -> rs.getLong("id"));
+    }
+
+    // O que /search faz por requisiÃ§Ã£o: pÃ¡gina e COUNT com os mesmos filtros
+    @Benchmark
+    public Long searchPageAndCount() {
+        jdbc.query(pageSql, params, (rs, row) -> rs.getLong("id"));
+        return jdbc.queryForObject(countSql, params, Long.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserSearchBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
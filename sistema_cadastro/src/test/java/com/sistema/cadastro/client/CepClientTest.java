@@ -0,0 +1,246 @@
+﻿package com.sistema.cadastro.client;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CepClientTest {
+
+    private static final String BODY = "{\"cep\":\"01001-000\",\"logradouro\":\"PraÃ§a da SÃ©\","
+            + "\"bairro\":\"SÃ©\",\"localidade\":\"SÃ£o Paulo\",\"uf\":\"SP\"}";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private StubProvider primary;
+    private StubProvider secondary;
+
+    @BeforeEach
+    void setup() throws IOException {
+        primary = new StubProvider();
+        secondary = new StubProvider();
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.stop();
+        secondary.stop();
+        executor.shutdownNow();
+    }
+
+    private CepClient buildClient(boolean hedge, int maxConcurrentCalls) {
+        return buildClient(hedge, maxConcurrentCalls, maxConcurrentCalls);
+    }
+
+    private CepClient buildClient(boolean hedge, int maxConcurrentCalls, int maxConcurrentHedges) {
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .recordException(new CepUpstreamFailurePredicate())
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        bulkheads.bulkhead(CepClient.HEDGE_BULKHEAD, BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentHedges)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        CepClient client = new CepClient(WebClient.create(primary.url()), circuitBreakers, bulkheads);
+        ReflectionTestUtils.setField(client, "timeout", 15000);
+        ReflectionTestUtils.setField(client, "attemptTimeout", 10000L);
+        ReflectionTestUtils.setField(client, "maxRetryAttempts", 0);
+        ReflectionTestUtils.setField(client, "backoffDelay", 1L);
+        ReflectionTestUtils.setField(client, "hedgeEnabled", hedge);
+        ReflectionTestUtils.setField(client, "secondaryUrl", secondary.url());
+        ReflectionTestUtils.setField(client, "hedgeDefaultDelay", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(client, "hedgeMinSamples", 50L);
+        client.init();
+        client.bindTo(new SimpleMeterRegistry());
+        return client;
+    }
+
+    @Test
+    @DisplayName("getCepDataAsync: resposta do provedor principal")
+    void success() {
+        CepClient client = buildClient(false, 10);
+
+        CepDataDTO result = client.getCepDataAsync("01001000").block();
+
+        assertNotNull(result);
+        assertEquals("SÃ£o Paulo", result.getLocalidade());
+        assertEquals(1, primary.requests.get());
+    }
+
+    @Test
+    @DisplayName("retry: tentativa que estoura attempt-timeout Ã© repetida e a seguinte responde")
+    void slowAttemptIsRetried() {
+        CepClient client = buildClient(false, 10);
+        ReflectionTestUtils.setField(client, "attemptTimeout", 200L);
+        ReflectionTestUtils.setField(client, "maxRetryAttempts", 1);
+        primary.firstDelayMillis = 1000;
+
+        CepDataDTO result = client.getCepDataAsync("01001000").block();
+
+        assertNotNull(result);
+        assertEquals("SÃ£o Paulo", result.getLocalidade());
+        assertEquals(2, primary.requests.get());
+    }
+
+    @Test
+    @DisplayName("circuit breaker: erros 5xx abrem o circuito e as chamadas seguintes falham sem ir ao ViaCEP")
+    void breakerOpensOnServerErrors() {
+        CepClient client = buildClient(false, 10);
+        primary.status = 503;
+
+        for (int i = 0; i < 4; i++) {
+            BusinessException ex = assertThrows(BusinessException.class, () -> client.getCepDataAsync("01001000").block());
+            assertEquals(CepClient.SERVICE_UNAVAILABLE, ex.getErrorCode());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+
+        BusinessException rejected = assertThrows(BusinessException.class, () -> client.getCepDataAsync("01001000").block());
+        assertEquals(CepClient.SERVICE_UNAVAILABLE, rejected.getErrorCode());
+        assertEquals(4, primary.requests.get());
+    }
+
+    @Test
+    @DisplayName("circuit breaker: CEP inexistente (4xx) nÃ£o conta como falha")
+    void notFoundDoesNotOpenBreaker() {
+        CepClient client = buildClient(false, 10);
+        primary.status = 400;
+
+        for (int i = 0; i < 6; i++) {
+            BusinessException ex = assertThrows(BusinessException.class, () -> client.getCepDataAsync("00000000").block());
+            assertNotEquals(CepClient.SERVICE_UNAVAILABLE, ex.getErrorCode());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    }
+
+    @Test
+    @DisplayName("bulkhead: chamadas acima do limite de concorrÃªncia sÃ£o rejeitadas imediatamente")
+    void bulkheadRejectsExcessCalls() throws Exception {
+        CepClient client = buildClient(false, 1);
+        primary.delayMillis = 500;
+
+        var slow = executor.submit(() -> client.getCepDataAsync("01001000").block());
+        while (primary.requests.get() == 0) {
+            Thread.sleep(5);
+        }
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> client.getCepDataAsync("01001000").block());
+        assertEquals(CepClient.SERVICE_UNAVAILABLE, ex.getErrorCode());
+        assertNotNull(slow.get());
+        assertEquals(1, primary.requests.get());
+    }
+
+    @Test
+    @DisplayName("hedge: provedor principal lento dispara consulta no secundÃ¡rio, que vence")
+    void hedgeWinsWhenPrimaryIsSlow() {
+        CepClient client = buildClient(true, 10);
+        primary.delayMillis = 1500;
+
+        CepDataDTO result = client.getCepDataAsync("01001000").block();
+
+        assertNotNull(result);
+        assertEquals(1, secondary.requests.get());
+        assertEquals(1, client.getHedgesFired());
+        assertEquals(1, client.getHedgeWins());
+    }
+
+    @Test
+    @DisplayName("hedge: provedor principal rÃ¡pido nÃ£o dispara o secundÃ¡rio")
+    void hedgeNotFiredWhenPrimaryIsFast() {
+        CepClient client = buildClient(true, 10);
+
+        assertNotNull(client.getCepDataAsync("01001000").block());
+
+        assertEquals(0, secondary.requests.get());
+        assertEquals(0, client.getHedgesFired());
+        assertEquals(Duration.ofMillis(100), client.hedgeDelay());
+    }
+
+    @Test
+    @DisplayName("hedge: acima do limite de hedges simultÃ¢neos a consulta espera sÃ³ o provedor principal")
+    void hedgeBulkheadLimitsSecondaryCalls() throws Exception {
+        CepClient client = buildClient(true, 10, 1);
+        primary.delayMillis = 600;
+        secondary.delayMillis = 600;
+
+        var first = executor.submit(() -> client.getCepDataAsync("01001000").block());
+        while (secondary.requests.get() == 0) {
+            Thread.sleep(5);
+        }
+        CepDataDTO second = client.getCepDataAsync("01001000").block();
+
+        assertNotNull(first.get());
+        assertNotNull(second);
+        assertEquals(1, secondary.requests.get());
+        assertEquals(1, client.getHedgesFired());
+        assertEquals(1, client.getHedgesRejected());
+    }
+
+    private class StubProvider {
+
+        private final HttpServer server;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int status = 200;
+        private volatile long delayMillis;
+        private volatile long firstDelayMillis;
+
+        StubProvider() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            int request = requests.incrementAndGet();
+            try {
+                Thread.sleep(request == 1 && firstDelayMillis > 0 ? firstDelayMillis : delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (status == 200 ? BODY : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
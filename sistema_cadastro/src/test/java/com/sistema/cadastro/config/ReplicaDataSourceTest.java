@@ -0,0 +1,135 @@
+﻿package com.sistema.cadastro.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica0;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private Connection primaryConnection;
+
+    private ReplicaDataSource replicaDataSource;
+
+    @BeforeEach
+    void setup() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replica0);
+        replicas.put("replica-1", replica1);
+        replicaDataSource = new ReplicaDataSource(primary, replicas, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void cleanup() {
+        ReplicaDataSource.clearPrimaryOnly();
+    }
+
+    @Test
+    @DisplayName("Antes da primeira verificaÃ§Ã£o as leituras vÃ£o ao primÃ¡rio")
+    void uncheckedReplicasNotUsed() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, replicaDataSource.getConnection());
+        verifyNoInteractions(replica0, replica1);
+    }
+
+    @Test
+    @DisplayName("RÃ©plicas saudÃ¡veis se alternam; atrasada alÃ©m de max-lag fica de fora")
+    void roundRobinSkipsLaggingReplica() throws SQLException {
+        Connection healthy = replicaReporting(replica0, 0.5);
+        replicaReporting(replica1, 30);
+
+        replicaDataSource.checkReplicas();
+
+        assertSame(healthy, replicaDataSource.getConnection());
+        assertSame(healthy, replicaDataSource.getConnection());
+        verify(replica1, times(1)).getConnection();
+        Map<String, Object> details = replicaDataSource.health().getDetails();
+        assertEquals(Map.of("status", "DOWN", "lagMs", 30_000L), details.get("replica-1"));
+    }
+
+    @Test
+    @DisplayName("Falha ao conectar tira a rÃ©plica de uso e a leitura segue no primÃ¡rio")
+    void connectionFailureFallsBackToPrimary() throws SQLException {
+        replicaReporting(replica0, 0);
+        replicaReporting(replica1, 0);
+        replicaDataSource.checkReplicas();
+        when(replica0.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, replicaDataSource.getConnection());
+        assertSame(primaryConnection, replicaDataSource.getConnection());
+        // Uma conexÃ£o na verificaÃ§Ã£o e uma na primeira leitura; a segunda leitura jÃ¡ nÃ£o tenta as rÃ©plicas
+        verify(replica0, times(2)).getConnection();
+        verify(replica1, times(2)).getConnection();
+    }
+
+    @Test
+    @DisplayName("read-your-writes: com usePrimaryOnly a leitura ignora as rÃ©plicas")
+    void primaryOnlyIgnoresReplicas() throws SQLException {
+        replicaReporting(replica0, 0);
+        replicaReporting(replica1, 0);
+        replicaDataSource.checkReplicas();
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        ReplicaDataSource.usePrimaryOnly();
+
+        assertSame(primaryConnection, replicaDataSource.getConnection());
+        assertEquals(Health.up().build().getStatus(), replicaDataSource.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("Credenciais explÃ­citas seguem para o primÃ¡rio mesmo com rÃ©plicas saudÃ¡veis")
+    void explicitCredentialsUsePrimary() throws SQLException {
+        replicaReporting(replica0, 0);
+        replicaReporting(replica1, 0);
+        replicaDataSource.checkReplicas();
+        when(primary.getConnection("relatorios", "segredo")).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, replicaDataSource.getConnection("relatorios", "segredo"));
+        verify(replica0, times(1)).getConnection();
+        verify(replica1, times(1)).getConnection();
+    }
+
+    // A conexÃ£o de verificaÃ§Ã£o responde ao SQL de atraso com lagSeconds e continua disponÃ­vel para leituras
+    private Connection replicaReporting(DataSource replica, double lagSeconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+        return connection;
+    }
+}
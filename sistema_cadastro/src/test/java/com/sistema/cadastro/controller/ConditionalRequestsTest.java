@@ -0,0 +1,60 @@
+﻿package com.sistema.cadastro.controller;
+
+import com.sistema.cadastro.repository.EntityVersion;
+import com.sistema.cadastro.util.EntityTags;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalRequestsTest {
+
+    private static final LocalDateTime STALE = LocalDateTime.of(2026, 3, 1, 10, 0);
+    private static final LocalDateTime CURRENT = STALE.plusMinutes(5);
+
+    @Test
+    @DisplayName("notModified: If-None-Match igual Ã  versÃ£o responde 304")
+    void notModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + EntityTags.of(1L, CURRENT) + "\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(ConditionalRequests.notModified(version(1L, CURRENT), new ServletWebRequest(request, response)));
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("tag: no 200 o ETag e o Last-Modified saem da entidade devolvida, nÃ£o da consulta de versÃ£o")
+    void tagFromReturnedEntity() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Consulta de versÃ£o numa rÃ©plica adiantada; o corpo vem de uma entrada de cache anterior
+        assertFalse(ConditionalRequests.notModified(version(1L, CURRENT), new ServletWebRequest(request, response)));
+        ConditionalRequests.tag(response, 1L, STALE);
+
+        assertEquals(List.of("\"" + EntityTags.of(1L, STALE) + "\""), response.getHeaders(HttpHeaders.ETAG));
+        assertEquals(EntityTags.lastModified(STALE), response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private static EntityVersion version(Long id, LocalDateTime updatedAt) {
+        return new EntityVersion() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getUpdatedAt() {
+                return updatedAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+﻿package com.sistema.cadastro.dataset;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CepDatasetIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private CepDatasetIndex importAndOpen(String fileName, String content) throws IOException {
+        Path source = directory.resolve(fileName);
+        Path target = directory.resolve("ceps.bin");
+        Files.writeString(source, content, StandardCharsets.UTF_8);
+        CepDatasetImporter.importFile(source, target);
+        return CepDatasetIndex.open(target);
+    }
+
+    @Test
+    @DisplayName("CSV: importa, ordena e encontra CEPs por busca binÃ¡ria")
+    void csvImportAndLookup() throws IOException {
+        CepDatasetIndex index = importAndOpen("ceps.csv", """
+                cep;logradouro;bairro;localidade;uf
+                20040-020;Avenida Rio Branco;Centro;Rio de Janeiro;RJ
+                01001-000;PraÃ§a da SÃ©;SÃ©;SÃ£o Paulo;SP
+                30130-010;;Centro;Belo Horizonte;MG
+                """);
+
+        assertEquals(3, index.size());
+
+        CepDataDTO cepData = index.find("01001000");
+        assertNotNull(cepData);
+        assertEquals("01001-000", cepData.getCep());
+        assertEquals("PraÃ§a da SÃ©", cepData.getLogradouro());
+        assertEquals("SÃ£o Paulo", cepData.getLocalidade());
+        assertEquals("SP", cepData.getUf());
+        assertFalse(cepData.getErro());
+
+        CepDataDTO semLogradouro = index.find("30130010");
+        assertNotNull(semLogradouro);
+        assertNull(semLogradouro.getLogradouro());
+        assertEquals("Centro", semLogradouro.getBairro());
+    }
+
+    @Test
+    @DisplayName("NDJSON: importa registros e reaproveita textos repetidos no dicionÃ¡rio")
+    void ndjsonImport() throws IOException {
+        CepDatasetIndex index = importAndOpen("ceps.ndjson", """
+                {"cep":"01001000","logradouro":"PraÃ§a da SÃ©","bairro":"SÃ©","localidade":"SÃ£o Paulo","uf":"SP"}
+                {"cep":"01310100","logradouro":"Avenida Paulista","bairro":"Bela Vista","localidade":"SÃ£o Paulo","uf":"sp"}
+                """);
+
+        assertEquals(2, index.size());
+        assertEquals("SP", index.find("01310100").getUf());
+        assertEquals(6, index.dictionarySize());
+    }
+
+    @Test
+    @DisplayName("find: CEP ausente ou malformado retorna null")
+    void missAndInvalid() throws IOException {
+        CepDatasetIndex index = importAndOpen("ceps.csv", """
+                cep,localidade,uf
+                01001000,SÃ£o Paulo,SP
+                """);
+
+        assertNull(index.find("99999999"));
+        assertNull(index.find("0100100"));
+        assertEquals(-1, index.indexOf(1));
+    }
+
+    @Test
+    @DisplayName("import: em CEP duplicado vale o Ãºltimo registro e linhas invÃ¡lidas sÃ£o ignoradas")
+    void duplicatesLastWins() throws IOException {
+        CepDatasetIndex index = importAndOpen("ceps.csv", """
+                cep,localidade,uf
+                01001000,Antiga,SP
+                123,InvÃ¡lido,SP
+                01001000,SÃ£o Paulo,SP
+                02002000,,SP
+                """);
+
+        assertEquals(1, index.size());
+        assertEquals("SÃ£o Paulo", index.find("01001000").getLocalidade());
+    }
+
+    @Test
+    @DisplayName("open: arquivo que nÃ£o Ã© base de CEPs Ã© rejeitado")
+    void rejectsInvalidFile() throws IOException {
+        Path file = directory.resolve("lixo.bin");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> CepDatasetIndex.open(file));
+    }
+
+    @Test
+    @DisplayName("open: contagens do cabeÃ§alho fora do tamanho do arquivo sÃ£o rejeitadas")
+    void rejectsCorruptHeader() throws IOException {
+        importAndOpen("ceps.csv", """
+                cep,localidade,uf
+                01001000,SÃ£o Paulo,SP
+                """);
+        Path target = directory.resolve("ceps.bin");
+        byte[] original = Files.readAllBytes(target);
+
+        for (int[] header : new int[][]{{8, -1}, {8, Integer.MAX_VALUE}, {16, -1}, {16, 0x4000_0000}}) {
+            ByteBuffer corrupt = ByteBuffer.wrap(original.clone());
+            corrupt.putInt(header[0], header[1]);
+            Files.write(target, corrupt.array());
+            assertThrows(IOException.class, () -> CepDatasetIndex.open(target));
+        }
+
+        Files.write(target, Arrays.copyOf(original, original.length - 2));
+        assertThrows(IOException.class, () -> CepDatasetIndex.open(target));
+    }
+
+    @Test
+    @DisplayName("open: referÃªncia fora do dicionÃ¡rio Ã© rejeitada na abertura")
+    void rejectsDanglingReference() throws IOException {
+        CepDatasetIndex index = importAndOpen("ceps.csv", """
+                cep,localidade,uf
+                01001000,SÃ£o Paulo,SP
+                """);
+        Path target = directory.resolve("ceps.bin");
+        ByteBuffer corrupt = ByteBuffer.wrap(Files.readAllBytes(target));
+        corrupt.putInt(CepDatasetFormat.HEADER_BYTES + Integer.BYTES, index.dictionarySize());
+        Files.write(target, corrupt.array());
+
+        assertThrows(IOException.class, () -> CepDatasetIndex.open(target));
+    }
+}
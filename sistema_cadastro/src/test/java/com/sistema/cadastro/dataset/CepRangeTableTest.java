@@ -0,0 +1,80 @@
+﻿package com.sistema.cadastro.dataset;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CepRangeTableTest {
+
+    @TempDir
+    Path directory;
+
+    private CepRangeTable load(String content) throws IOException {
+        Path file = directory.resolve("faixas.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return CepRangeTable.load(file);
+    }
+
+    @Test
+    @DisplayName("resolve: CEP dentro da faixa retorna cidade/UF marcados como degradados")
+    void resolveInsideRange() throws IOException {
+        CepRangeTable table = load("""
+                cep_inicial;cep_final;localidade;uf
+                20000-001;23799-999;Rio de Janeiro;RJ
+                01000-000;05999-999;SÃ£o Paulo;sp
+                """);
+
+        assertEquals(2, table.size());
+
+        CepDataDTO cepData = table.resolve("01001000");
+        assertNotNull(cepData);
+        assertEquals("01001-000", cepData.getCep());
+        assertEquals("SÃ£o Paulo", cepData.getLocalidade());
+        assertEquals("SP", cepData.getUf());
+        assertNull(cepData.getLogradouro());
+        assertTrue(cepData.isDegraded());
+    }
+
+    @Test
+    @DisplayName("resolve: limites das faixas sÃ£o inclusivos e lacunas nÃ£o resolvem")
+    void boundariesAndGaps() throws IOException {
+        CepRangeTable table = load("""
+                01000000,05999999,SÃ£o Paulo,SP
+                20000001,23799999,Rio de Janeiro,RJ
+                """);
+
+        assertEquals("SP", table.resolve("01000000").getUf());
+        assertEquals("SP", table.resolve("05999999").getUf());
+        assertEquals("RJ", table.resolve("20000001").getUf());
+        assertNull(table.resolve("00999999"));
+        assertNull(table.resolve("10000000"));
+        assertNull(table.resolve("99999999"));
+        assertNull(table.resolve("123"));
+    }
+
+    @Test
+    @DisplayName("load: faixas sobrepostas sÃ£o rejeitadas")
+    void overlappingRangesRejected() {
+        IOException ex = assertThrows(IOException.class, () -> load("""
+                01000000;05999999;SÃ£o Paulo;SP
+                05000000;06999999;Osasco;SP
+                """));
+        assertTrue(ex.getMessage().contains("sobrepostas"));
+    }
+
+    @Test
+    @DisplayName("load: faixa com fim menor que o inÃ­cio Ã© rejeitada")
+    void invalidRangeRejected() {
+        assertThrows(IOException.class, () -> load("""
+                05999999;01000000;SÃ£o Paulo;SP
+                """));
+    }
+}
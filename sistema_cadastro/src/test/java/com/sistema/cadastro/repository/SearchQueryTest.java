@@ -0,0 +1,138 @@
+﻿package com.sistema.cadastro.repository;
+
+import com.sistema.cadastro.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchQueryTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Query query;
+
+    @Test
+    @DisplayName("SQL contÃ©m apenas os filtros informados, sem IS NULL")
+    void onlySuppliedFilters() {
+        SearchQuery search = UserSearchRepositoryImpl.filters("Ana", null, null, null, "SP");
+
+        String sql = search.pageSql(Sort.unsorted());
+
+        assertEquals("SELECT * FROM users u WHERE LOWER(u.name) LIKE '%' || LOWER(:name) || '%' AND u.state = :state "
+                + "ORDER BY u.id LIMIT :limit OFFSET :offset", sql);
+        assertEquals("SELECT COUNT(*) FROM users u WHERE LOWER(u.name) LIKE '%' || LOWER(:name) || '%' AND u.state = :state",
+                search.countSql());
+        assertEquals(List.of("name", "state"), List.copyOf(search.parameters().keySet()));
+    }
+
+    @Test
+    @DisplayName("Mesmo formato de filtro reaproveita o mesmo texto SQL, com valores diferentes")
+    void sqlCachedPerShape() {
+        String first = UserSearchRepositoryImpl.filters("Ana", null, null, "Campinas", null).pageSql(Sort.unsorted());
+        String second = UserSearchRepositoryImpl.filters("Bruno", null, null, "Santos", null).pageSql(Sort.unsorted());
+        String other = UserSearchRepositoryImpl.filters("Bruno", null, null, null, null).pageSql(Sort.unsorted());
+
+        assertSame(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    @DisplayName("EstratÃ©gia de contagem depende do formato do filtro")
+    void countStrategyPerShape() {
+        assertEquals(SearchQuery.CountStrategy.NONE,
+                UserSearchRepositoryImpl.filters(null, null, "12345678909", null, null).countStrategy());
+        assertEquals(SearchQuery.CountStrategy.ESTIMATED,
+                UserSearchRepositoryImpl.filters(null, null, null, null, null).countStrategy());
+        assertEquals(SearchQuery.CountStrategy.EXACT,
+                ProductSearchRepositoryImpl.filters(null, null, null, null, null, null, null, null, true).countStrategy());
+    }
+
+    @Test
+    @DisplayName("OrdenaÃ§Ã£o aceita apenas propriedades conhecidas e sempre desempata por id")
+    void sortWhitelist() {
+        SearchQuery search = ProductSearchRepositoryImpl.filters(null, "ABC", null, null, null, null, null, null, null);
+
+        assertTrue(search.pageSql(Sort.by(Sort.Direction.DESC, "price")).contains("ORDER BY p.price DESC, p.id LIMIT"));
+        assertThrows(IllegalArgumentException.class, () -> search.pageSql(Sort.by("price; DROP TABLE products")));
+    }
+
+    @Test
+    @DisplayName("Busca por CPF nÃ£o executa COUNT mesmo com a pÃ¡gina cheia")
+    void uniqueKeySkipsCount() {
+        User user = User.builder().id(1L).cpf("12345678909").build();
+        when(entityManager.createNativeQuery(anyString(), eq(User.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(user));
+
+        Page<User> page = UserSearchRepositoryImpl.filters(null, null, "12345678909", null, null)
+                .page(entityManager, User.class, PageRequest.of(0, 1));
+
+        assertEquals(1, page.getTotalElements());
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+    @Test
+    @DisplayName("fields: SELECT apenas das colunas pedidas")
+    void projectionSelectsOnlyRequestedColumns() {
+        FieldSet fields = ProductSearchRepositoryImpl.fieldSet("id, name,price,imageUrl");
+
+        String sql = ProductSearchRepositoryImpl.filters(null, null, null, null, null, null, null, null, true)
+                .pageSql(fields, Sort.unsorted());
+
+        assertEquals("SELECT p.id, p.name, p.price, p.image_url FROM products p WHERE p.is_active = :is_active "
+                + "ORDER BY p.id LIMIT :limit OFFSET :offset", sql);
+        assertThrows(IllegalArgumentException.class, () -> ProductSearchRepositoryImpl.fieldSet("id,cost"));
+        assertThrows(IllegalArgumentException.class, () -> UserSearchRepositoryImpl.fieldSet(" , "));
+    }
+
+    @Test
+    @DisplayName("fields e sort: permutaÃ§Ãµes e repetiÃ§Ãµes geram o mesmo texto SQL")
+    void equivalentRequestsShareSql() {
+        SearchQuery search = ProductSearchRepositoryImpl.filters(null, null, null, null, null, null, null, null, true);
+
+        String sql = search.pageSql(ProductSearchRepositoryImpl.fieldSet("price,id,name"), Sort.by("name"));
+
+        assertSame(sql, search.pageSql(ProductSearchRepositoryImpl.fieldSet("name, price,id,name"), Sort.by("name", "name")));
+        assertTrue(sql.startsWith("SELECT p.id, p.name, p.price FROM"));
+        assertTrue(search.pageSql(Sort.by("id", "price", "id")).contains("ORDER BY p.id ASC LIMIT"));
+    }
+
+    @Test
+    @DisplayName("fields: linhas viram Map com os nomes das propriedades, sem instanciar a entidade")
+    void projectionRowsAsMaps() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 14, 25);
+        FieldSet fields = UserSearchRepositoryImpl.fieldSet("name,createdAt");
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of((Object) new Object[]{7L, "Ana", Timestamp.valueOf(createdAt)}));
+
+        List<Map<String, Object>> rows = UserSearchRepositoryImpl.filters(null, null, null, null, null)
+                .keyset(entityManager, fields.with("createdAt", "id"), LocalDateTime.MIN, 0, 21);
+
+        assertEquals(Map.of("name", "Ana", "createdAt", createdAt, "id", 7L), rows.get(0));
+        verify(entityManager).createNativeQuery("SELECT u.id, u.name, u.created_at FROM users u "
+                + "WHERE (u.created_at, u.id) > (:afterCreatedAt, :afterId) ORDER BY u.created_at, u.id LIMIT :limit");
+        verify(entityManager, never()).createNativeQuery(anyString(), eq(User.class));
+    }
+}
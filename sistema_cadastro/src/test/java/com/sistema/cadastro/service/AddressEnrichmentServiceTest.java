@@ -0,0 +1,217 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.client.CepClient;
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.entity.AddressEnrichmentOutbox;
+import com.sistema.cadastro.entity.AddressStatus;
+import com.sistema.cadastro.entity.User;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.repository.AddressEnrichmentOutboxRepository;
+import com.sistema.cadastro.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AddressEnrichmentServiceTest {
+
+    @Mock
+    private AddressEnrichmentOutboxRepository outboxRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CepService cepService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Executor enrichmentExecutor;
+
+    @InjectMocks
+    private AddressEnrichmentService addressEnrichmentService;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(addressEnrichmentService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(addressEnrichmentService, "retryDelay", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(addressEnrichmentService, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(addressEnrichmentService, "batchSize", 100);
+    }
+
+    private void runTransactionsInline() {
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private AddressEnrichmentOutbox buildEntry(int attempts) {
+        return AddressEnrichmentOutbox.builder()
+                .id(10L)
+                .userId(1L)
+                .cep("01001000")
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private User buildPendingUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setCep("01001000");
+        user.setAddressStatus(AddressStatus.PENDING);
+        return user;
+    }
+
+    @Test
+    @DisplayName("enqueue: grava no outbox e dispara o processamento no executor")
+    void enqueue_savesOutboxAndDispatches() {
+        when(outboxRepository.save(any())).thenAnswer(inv -> {
+            AddressEnrichmentOutbox entry = inv.getArgument(0);
+            entry.setId(10L);
+            return entry;
+        });
+
+        addressEnrichmentService.enqueue(buildPendingUser());
+
+        ArgumentCaptor<AddressEnrichmentOutbox> captor = ArgumentCaptor.forClass(AddressEnrichmentOutbox.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals(1L, captor.getValue().getUserId());
+        assertEquals("01001000", captor.getValue().getCep());
+        assertTrue(captor.getValue().getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(enrichmentExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("dispatch: executor cheio nÃ£o propaga erro (o agendador retoma o outbox)")
+    void dispatch_rejectedIsTolerated() {
+        doThrow(new RejectedExecutionException("cheio")).when(enrichmentExecutor).execute(any(Runnable.class));
+
+        assertDoesNotThrow(() -> addressEnrichmentService.dispatch(10L));
+    }
+
+    @Test
+    @DisplayName("process: sucesso preenche o endereÃ§o, marca ENRICHED e remove do outbox")
+    void process_success() {
+        User user = buildPendingUser();
+        when(outboxRepository.findById(10L)).thenReturn(Optional.of(buildEntry(0)));
+        when(cepService.validateAndFetchCep("01001000")).thenReturn(CepDataDTO.builder()
+                .logradouro("PraÃ§a da SÃ©")
+                .bairro("SÃ©")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        runTransactionsInline();
+
+        addressEnrichmentService.process(10L);
+
+        assertEquals(AddressStatus.ENRICHED, user.getAddressStatus());
+        assertEquals("PraÃ§a da SÃ©", user.getAddress());
+        assertEquals("SP", user.getState());
+        verify(userRepository).save(user);
+        verify(outboxRepository).deleteById(10L);
+    }
+
+    @Test
+    @DisplayName("process: CEP inexistente marca FAILED sem nova tentativa")
+    void process_notFoundFails() {
+        User user = buildPendingUser();
+        when(outboxRepository.findById(10L)).thenReturn(Optional.of(buildEntry(0)));
+        when(cepService.validateAndFetchCep("01001000")).thenThrow(new BusinessException(
+                "CEP nÃ£o encontrado ou invÃ¡lido", HttpStatus.BAD_REQUEST, CepClient.CEP_NOT_FOUND));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        runTransactionsInline();
+
+        addressEnrichmentService.process(10L);
+
+        assertEquals(AddressStatus.FAILED, user.getAddressStatus());
+        verify(outboxRepository).deleteById(10L);
+    }
+
+    @Test
+    @DisplayName("process: falha temporÃ¡ria reagenda com backoff")
+    void process_transientFailureReschedules() {
+        AddressEnrichmentOutbox entry = buildEntry(1);
+        when(outboxRepository.findById(10L)).thenReturn(Optional.of(entry));
+        when(cepService.validateAndFetchCep("01001000")).thenThrow(new BusinessException("Erro ao buscar dados do CEP"));
+        runTransactionsInline();
+
+        addressEnrichmentService.process(10L);
+
+        assertEquals(2, entry.getAttempts());
+        assertEquals("Erro ao buscar dados do CEP", entry.getLastError());
+        assertTrue(entry.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        verify(outboxRepository).save(entry);
+        verify(outboxRepository, never()).deleteById(any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("process: resultado degradado conta como falha temporÃ¡ria e esgotar tentativas marca FAILED")
+    void process_degradedExhaustsAttempts() {
+        User user = buildPendingUser();
+        when(outboxRepository.findById(10L)).thenReturn(Optional.of(buildEntry(2)));
+        when(cepService.validateAndFetchCep("01001000")).thenReturn(CepDataDTO.builder()
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .degraded(true)
+                .build());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        runTransactionsInline();
+
+        addressEnrichmentService.process(10L);
+
+        assertEquals(AddressStatus.FAILED, user.getAddressStatus());
+        verify(outboxRepository).deleteById(10L);
+    }
+
+    @Test
+    @DisplayName("process: registro jÃ¡ processado Ã© ignorado")
+    void process_missingEntryIgnored() {
+        when(outboxRepository.findById(10L)).thenReturn(Optional.empty());
+
+        addressEnrichmentService.process(10L);
+
+        verifyNoInteractions(cepService, userRepository, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("pollPending: reserva registros vencidos e os despacha")
+    void pollPending_claimsAndDispatches() {
+        AddressEnrichmentOutbox entry = buildEntry(0);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<List<Long>>>getArgument(0).doInTransaction(null));
+        when(outboxRepository.lockDue(any(LocalDateTime.class), eq(100))).thenReturn(List.of(entry));
+
+        addressEnrichmentService.pollPending();
+
+        assertTrue(entry.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(60)));
+        verify(outboxRepository).saveAll(List.of(entry));
+        verify(enrichmentExecutor).execute(any(Runnable.class));
+    }
+}
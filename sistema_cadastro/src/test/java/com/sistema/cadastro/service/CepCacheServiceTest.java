@@ -0,0 +1,152 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.entity.CepCacheEntry;
+import com.sistema.cadastro.repository.CepCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CepCacheServiceTest {
+
+    @Mock
+    private CepCacheRepository cepCacheRepository;
+
+    @InjectMocks
+    private CepCacheService cepCacheService;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(cepCacheService, "localMaxSize", 100L);
+        ReflectionTestUtils.setField(cepCacheService, "localTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(cepCacheService, "persistentEnabled", true);
+        ReflectionTestUtils.setField(cepCacheService, "persistentTtl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(cepCacheService, "negativeMaxSize", 100L);
+        ReflectionTestUtils.setField(cepCacheService, "negativeTtl", Duration.ofMinutes(1));
+        cepCacheService.init();
+    }
+
+    private CepDataDTO buildCepData() {
+        return CepDataDTO.builder()
+                .cep("01001-000")
+                .logradouro("PraÃ§a da SÃ©")
+                .bairro("SÃ©")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build();
+    }
+
+    @Test
+    @DisplayName("get: miss nos dois nÃ­veis retorna vazio")
+    void get_missOnBothTiers() {
+        when(cepCacheRepository.findById("01001000")).thenReturn(Optional.empty());
+
+        assertTrue(cepCacheService.get("01001000").isEmpty());
+    }
+
+    @Test
+    @DisplayName("put: grava no cache local e no persistente")
+    void put_writesBothTiers() {
+        cepCacheService.put("01001000", buildCepData());
+
+        ArgumentCaptor<CepCacheEntry> captor = ArgumentCaptor.forClass(CepCacheEntry.class);
+        verify(cepCacheRepository).save(captor.capture());
+        assertEquals("01001000", captor.getValue().getCep());
+        assertEquals("SP", captor.getValue().getUf());
+        assertNotNull(captor.getValue().getFetchedAt());
+
+        Optional<CepDataDTO> cached = cepCacheService.get("01001000");
+        assertTrue(cached.isPresent());
+        assertEquals("SÃ£o Paulo", cached.get().getLocalidade());
+        verify(cepCacheRepository, never()).findById(anyString());
+    }
+
+    @Test
+    @DisplayName("get: hit no cache persistente promove para o cache local")
+    void get_persistentHitIsPromoted() {
+        when(cepCacheRepository.findById("01001000")).thenReturn(Optional.of(CepCacheEntry.builder()
+                .cep("01001000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .fetchedAt(LocalDateTime.now().minusDays(1))
+                .build()));
+
+        assertTrue(cepCacheService.get("01001000").isPresent());
+        assertTrue(cepCacheService.get("01001000").isPresent());
+
+        verify(cepCacheRepository, times(1)).findById("01001000");
+    }
+
+    @Test
+    @DisplayName("get: registro persistente expirado Ã© ignorado")
+    void get_expiredPersistentEntryIgnored() {
+        when(cepCacheRepository.findById("01001000")).thenReturn(Optional.of(CepCacheEntry.builder()
+                .cep("01001000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .fetchedAt(LocalDateTime.now().minusDays(31))
+                .build()));
+
+        assertTrue(cepCacheService.get("01001000").isEmpty());
+    }
+
+    @Test
+    @DisplayName("get/put: falha no banco nÃ£o interrompe a consulta")
+    void persistentFailureIsTolerated() {
+        when(cepCacheRepository.findById("01001000")).thenThrow(new DataAccessResourceFailureException("down"));
+        when(cepCacheRepository.save(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertTrue(cepCacheService.get("01001000").isEmpty());
+        assertDoesNotThrow(() -> cepCacheService.put("01001000", buildCepData()));
+        assertTrue(cepCacheService.get("01001000").isPresent());
+    }
+
+    @Test
+    @DisplayName("bindTo: expÃµe hits e misses dos dois nÃ­veis")
+    void metricsAreExposed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cepCacheService.bindTo(registry);
+        when(cepCacheRepository.findById("01001000")).thenReturn(Optional.empty());
+
+        cepCacheService.get("01001000");
+
+        assertEquals(1.0, registry.get("cache.gets")
+                .tag("cache", CepCacheService.PERSISTENT_CACHE_NAME)
+                .tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets")
+                .tag("cache", CepCacheService.LOCAL_CACHE_NAME)
+                .tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("putInvalid: CEP inexistente fica no cache negativo sem tocar no banco")
+    void negativeCache() {
+        assertFalse(cepCacheService.isKnownInvalid("00000000"));
+
+        cepCacheService.putInvalid("00000000");
+
+        assertTrue(cepCacheService.isKnownInvalid("00000000"));
+        verify(cepCacheRepository, never()).save(any());
+
+        cepCacheService.evict("00000000");
+        assertFalse(cepCacheService.isKnownInvalid("00000000"));
+    }
+}
@@ -0,0 +1,66 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CepFileSourceTest {
+
+    @TempDir
+    Path directory;
+
+    private static CepFileSource<Map<String, CepDataDTO>> source(CepFileSource.Loader<Map<String, CepDataDTO>> loader) {
+        return new CepFileSource<>("Teste", "sem fonte local", "cep.test", loader, Map::size, map -> map.size() + " CEPs");
+    }
+
+    @Test
+    @DisplayName("Falha de leitura ou erro inesperado na carga deixam a fonte vazia sem propagar")
+    void loadFailureKeepsSourceEmpty() throws IOException {
+        Path file = Files.write(directory.resolve("ceps.bin"), new byte[8]);
+
+        CepFileSource<Map<String, CepDataDTO>> corrupt = source(path -> {
+            throw new IOException("Base de CEPs truncada: " + path);
+        });
+        corrupt.init(file.toString());
+        assertFalse(corrupt.isLoaded());
+
+        CepFileSource<Map<String, CepDataDTO>> broken = source(path -> {
+            throw new IllegalArgumentException("limite invÃ¡lido");
+        });
+        broken.init(file.toString());
+        assertFalse(broken.isLoaded());
+        assertTrue(broken.lookup(map -> map.get("01001000")).isEmpty());
+
+        CepFileSource<Map<String, CepDataDTO>> missing = source(path -> Map.of());
+        missing.init(directory.resolve("ausente.bin").toString());
+        missing.init(" ");
+        assertFalse(missing.isLoaded());
+    }
+
+    @Test
+    @DisplayName("Consultas contam acertos e erros e o gauge acompanha o tamanho da fonte")
+    void lookupsAreCounted() throws IOException {
+        Path file = Files.write(directory.resolve("ceps.bin"), new byte[8]);
+        CepDataDTO saoPaulo = CepDataDTO.builder().cep("01001-000").localidade("SÃ£o Paulo").uf("SP").build();
+        CepFileSource<Map<String, CepDataDTO>> source = source(path -> Map.of("01001000", saoPaulo));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        source.bindTo(registry, "acertos", "erros", "tamanho");
+
+        source.init(file.toString());
+
+        assertSame(saoPaulo, source.lookup(map -> map.get("01001000")).orElseThrow());
+        assertTrue(source.lookup(map -> map.get("99999999")).isEmpty());
+        assertEquals(1.0, registry.get("cep.test.lookups").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cep.test.lookups").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cep.test.size").gauge().value());
+    }
+}
@@ -3,12 +3,23 @@
 import com.sistema.cadastro.client.CepClient;
 import com.sistema.cadastro.dto.CepDataDTO;
 import com.sistema.cadastro.exception.BusinessException;
+import org.springframework.http.HttpStatus;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,6 +30,15 @@ class CepServiceTest {
     @Mock
     private CepClient cepClient;
 
+    @Mock
+    private CepCacheService cepCacheService;
+
+    @Mock
+    private CepDatasetService cepDatasetService;
+
+    @Mock
+    private CepRangeService cepRangeService;
+
     @InjectMocks
     private CepService cepService;
 
@@ -33,47 +53,271 @@ class CepServiceTest {
     @Test
     @DisplayName("validateAndFetchCep: CEP nÃ£o encontrado (erro=true) lanÃ§a BusinessException")
     void validateAndFetchCep_errorTrue() {
-        when(cepClient.getCepData("12345678")).thenReturn(CepDataDTO.builder()
+        when(cepClient.getCepDataAsync("12345678")).thenReturn(Mono.just(CepDataDTO.builder()
                 .cep("12345678")
                 .erro(true)
-                .build());
+                .build()));
 
         assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("12345-678"));
-        verify(cepClient).getCepData("12345678");
+        verify(cepClient).getCepDataAsync("12345678");
     }
 
     @Test
     @DisplayName("validateAndFetchCep: falta de cidade (localidade) lanÃ§a BusinessException")
     void validateAndFetchCep_missingCity() {
-        when(cepClient.getCepData("87654321")).thenReturn(CepDataDTO.builder()
+        when(cepClient.getCepDataAsync("87654321")).thenReturn(Mono.just(CepDataDTO.builder()
                 .cep("87654321")
                 .logradouro("Rua X")
                 .bairro("Bairro")
                 .localidade("")
                 .uf("SP")
                 .erro(false)
-                .build());
+                .build()));
 
         assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("87654-321"));
-        verify(cepClient).getCepData("87654321");
+        verify(cepClient).getCepDataAsync("87654321");
     }
 
     @Test
     @DisplayName("validateAndFetchCep: logradouro ausente nÃ£o impede sucesso (apenas warn)")
     void validateAndFetchCep_missingLogradouroAllowed() {
-        when(cepClient.getCepData("22223333")).thenReturn(CepDataDTO.builder()
+        when(cepClient.getCepDataAsync("22223333")).thenReturn(Mono.just(CepDataDTO.builder()
                 .cep("22223333")
                 .logradouro("")
                 .bairro("Bairro")
                 .localidade("Cidade")
                 .uf("SP")
                 .erro(false)
-                .build());
+                .build()));
 
         CepDataDTO result = cepService.validateAndFetchCep("22223-333");
         assertNotNull(result);
         assertEquals("22223333", result.getCep());
         assertEquals("SP", result.getUf());
-        verify(cepClient).getCepData("22223333");
+        verify(cepClient).getCepDataAsync("22223333");
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: sucesso grava o resultado no cache")
+    void validateAndFetchCep_successIsCached() {
+        CepDataDTO cepData = CepDataDTO.builder()
+                .cep("01001000")
+                .logradouro("PraÃ§a da SÃ©")
+                .bairro("SÃ©")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build();
+        when(cepClient.getCepDataAsync("01001000")).thenReturn(Mono.just(cepData));
+
+        cepService.validateAndFetchCep("01001-000");
+
+        verify(cepCacheService).put("01001000", cepData);
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: CEP em cache nÃ£o consulta o ViaCEP")
+    void validateAndFetchCep_cacheHitSkipsClient() {
+        CepDataDTO cepData = CepDataDTO.builder()
+                .cep("01001000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build();
+        when(cepCacheService.get("01001000")).thenReturn(Optional.of(cepData));
+
+        CepDataDTO result = cepService.validateAndFetchCep("01001-000");
+
+        assertSame(cepData, result);
+        verifyNoInteractions(cepClient);
+        verify(cepCacheService, never()).put(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCepAsync: cache persistente Ã© consultado fora da thread de quem chamou, uma vez por CEP")
+    void validateAndFetchCepAsync_persistentCacheOffCallerThread() {
+        CepDataDTO cepData = CepDataDTO.builder()
+                .cep("01001000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> lookupThread = new AtomicReference<>();
+        when(cepCacheService.get("01001000")).thenAnswer(inv -> {
+            lookupThread.set(Thread.currentThread());
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(cepData);
+        });
+
+        CompletableFuture<CepDataDTO> first = cepService.validateAndFetchCepAsync("01001000");
+        CompletableFuture<CepDataDTO> second = cepService.validateAndFetchCepAsync("01001-000");
+        assertFalse(first.isDone());
+        release.countDown();
+
+        assertSame(cepData, first.join());
+        assertSame(cepData, second.join());
+        assertNotSame(Thread.currentThread(), lookupThread.get());
+        verify(cepCacheService, times(1)).get("01001000");
+        verifyNoInteractions(cepClient);
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: CEP presente na base local nÃ£o consulta cache nem ViaCEP")
+    void validateAndFetchCep_datasetHitSkipsCacheAndClient() {
+        CepDataDTO cepData = CepDataDTO.builder()
+                .cep("01001-000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build();
+        when(cepDatasetService.find("01001000")).thenReturn(Optional.of(cepData));
+
+        CepDataDTO result = cepService.validateAndFetchCep("01001-000");
+
+        assertSame(cepData, result);
+        verifyNoInteractions(cepClient, cepCacheService);
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: CEP invÃ¡lido nÃ£o Ã© gravado no cache")
+    void validateAndFetchCep_errorIsNotCached() {
+        when(cepClient.getCepDataAsync("12345678")).thenReturn(Mono.just(CepDataDTO.builder()
+                .cep("12345678")
+                .erro(true)
+                .build()));
+
+        assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("12345678"));
+        verify(cepCacheService, never()).put(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: CEP inexistente (erro=true ou 4xx) vai para o cache negativo")
+    void validateAndFetchCep_notFoundIsNegativelyCached() {
+        when(cepClient.getCepDataAsync("12345678")).thenReturn(Mono.just(CepDataDTO.builder()
+                .cep("12345678")
+                .erro(true)
+                .build()));
+        when(cepClient.getCepDataAsync("87654321")).thenReturn(Mono.error(new BusinessException(
+                "CEP invÃ¡lido ou nÃ£o encontrado", HttpStatus.BAD_REQUEST, CepClient.CEP_NOT_FOUND)));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("12345678"));
+        assertEquals(CepClient.CEP_NOT_FOUND, ex.getErrorCode());
+        assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("87654321"));
+
+        verify(cepCacheService).putInvalid("12345678");
+        verify(cepCacheService).putInvalid("87654321");
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: CEP no cache negativo Ã© rejeitado sem consultar o ViaCEP")
+    void validateAndFetchCep_negativeCacheHitSkipsClient() {
+        when(cepCacheService.isKnownInvalid("12345678")).thenReturn(true);
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("12345-678"));
+
+        assertEquals(CepClient.CEP_NOT_FOUND, ex.getErrorCode());
+        verifyNoInteractions(cepClient);
+        verify(cepCacheService, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: falha tÃ©cnica do ViaCEP nÃ£o vai para o cache negativo")
+    void validateAndFetchCep_upstreamFailureIsNotNegativelyCached() {
+        when(cepClient.getCepDataAsync("01001000")).thenReturn(Mono.error(new TimeoutException("timeout")));
+
+        assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("01001000"));
+        verify(cepCacheService, never()).putInvalid(anyString());
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCepAsync: consultas simultÃ¢neas ao mesmo CEP compartilham uma chamada ao ViaCEP")
+    void validateAndFetchCepAsync_coalescesConcurrentLookups() {
+        Sinks.One<CepDataDTO> upstream = Sinks.one();
+        when(cepClient.getCepDataAsync("01001000")).thenReturn(upstream.asMono());
+
+        CompletableFuture<CepDataDTO> first = cepService.validateAndFetchCepAsync("01001-000");
+        CompletableFuture<CepDataDTO> second = cepService.validateAndFetchCepAsync("01001000");
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        upstream.tryEmitValue(CepDataDTO.builder()
+                .cep("01001000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .build());
+
+        assertEquals("SP", first.join().getUf());
+        assertEquals("SP", second.join().getUf());
+        assertEquals(1L, cepService.getCoalescedLookups());
+        verify(cepClient, times(1)).getCepDataAsync("01001000");
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCepAsync: erro da consulta compartilhada Ã© propagado a todos os chamadores")
+    void validateAndFetchCepAsync_sharesError() {
+        Sinks.One<CepDataDTO> upstream = Sinks.one();
+        when(cepClient.getCepDataAsync("12345678")).thenReturn(upstream.asMono());
+
+        CompletableFuture<CepDataDTO> first = cepService.validateAndFetchCepAsync("12345678");
+        CompletableFuture<CepDataDTO> second = cepService.validateAndFetchCepAsync("12345678");
+
+        upstream.tryEmitValue(CepDataDTO.builder().cep("12345678").erro(true).build());
+
+        CompletionException firstError = assertThrows(CompletionException.class, first::join);
+        CompletionException secondError = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(BusinessException.class, firstError.getCause());
+        assertSame(firstError.getCause(), secondError.getCause());
+        verify(cepClient, times(1)).getCepDataAsync("12345678");
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: ViaCEP indisponÃ­vel resolve cidade/UF pela faixa sem gravar no cache")
+    void validateAndFetchCep_upstreamFailureFallsBackToRanges() {
+        CepDataDTO degraded = CepDataDTO.builder()
+                .cep("01001-000")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .degraded(true)
+                .build();
+        when(cepClient.getCepDataAsync("01001000")).thenReturn(Mono.error(new TimeoutException("timeout")));
+        when(cepRangeService.resolve("01001000")).thenReturn(Optional.of(degraded));
+
+        CepDataDTO result = cepService.validateAndFetchCep("01001-000");
+
+        assertSame(degraded, result);
+        assertTrue(result.isDegraded());
+        verify(cepCacheService, never()).put(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: erro 5xx do ViaCEP tambÃ©m usa o modo degradado")
+    void validateAndFetchCep_serviceUnavailableFallsBackToRanges() {
+        when(cepClient.getCepDataAsync("01001000")).thenReturn(Mono.error(new BusinessException(
+                "Erro no serviÃ§o de consulta de CEP", HttpStatus.SERVICE_UNAVAILABLE, CepClient.SERVICE_UNAVAILABLE)));
+        when(cepRangeService.resolve("01001000")).thenReturn(Optional.of(CepDataDTO.builder()
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .degraded(true)
+                .build()));
+
+        assertEquals("SP", cepService.validateAndFetchCep("01001000").getUf());
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: CEP inexistente no ViaCEP nÃ£o usa o modo degradado")
+    void validateAndFetchCep_notFoundDoesNotFallBack() {
+        when(cepClient.getCepDataAsync("12345678")).thenReturn(Mono.just(CepDataDTO.builder()
+                .cep("12345678")
+                .erro(true)
+                .build()));
+
+        assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("12345678"));
+        verifyNoInteractions(cepRangeService);
+    }
+
+    @Test
+    @DisplayName("validateAndFetchCep: falha sem faixa conhecida mantÃ©m o erro original")
+    void validateAndFetchCep_upstreamFailureWithoutRange() {
+        when(cepClient.getCepDataAsync("01001000")).thenReturn(Mono.error(new TimeoutException("timeout")));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> cepService.validateAndFetchCep("01001000"));
+        assertEquals("Erro ao buscar dados do CEP", ex.getMessage());
     }
 }
@@ -0,0 +1,126 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.dto.CepWarmupStatusDTO;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CepWarmupServiceTest {
+
+    @Mock
+    private CepService cepService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CepWarmupService cepWarmupService;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(cepWarmupService, "warmupOnStartup", true);
+        ReflectionTestUtils.setField(cepWarmupService, "concurrency", 2);
+        ReflectionTestUtils.setField(cepWarmupService, "startupBudget", Duration.ofMillis(200));
+    }
+
+    private CepDataDTO buildCepData() {
+        return CepDataDTO.builder().localidade("SÃ£o Paulo").uf("SP").build();
+    }
+
+    @Test
+    @DisplayName("start: prÃ©-carrega CEPs distintos e contabiliza sucessos e falhas")
+    void start_countsLoadedAndFailed() {
+        when(cepService.validateAndFetchCepAsync("01001000")).thenReturn(CompletableFuture.completedFuture(buildCepData()));
+        when(cepService.validateAndFetchCepAsync("99999999")).thenReturn(
+                CompletableFuture.failedFuture(new BusinessException("CEP nÃ£o encontrado ou invÃ¡lido")));
+
+        CepWarmupStatusDTO started = cepWarmupService.start(List.of("01001-000", "01001000", "99999999", " "));
+        CepWarmupStatusDTO status = cepWarmupService.getJob(started.getId());
+
+        assertEquals("admin", status.getSource());
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(2, status.getTotal());
+        assertEquals(2, status.getProcessed());
+        assertEquals(1, status.getLoaded());
+        assertEquals(1, status.getFailed());
+        assertEquals(1.0, status.getProgress());
+        assertNotNull(status.getFinishedAt());
+        verify(cepService, times(1)).validateAndFetchCepAsync("01001000");
+    }
+
+    @Test
+    @DisplayName("start: respeita o limite de consultas simultÃ¢neas")
+    void start_boundedConcurrency() {
+        List<CompletableFuture<CepDataDTO>> pending = new ArrayList<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(cepService.validateAndFetchCepAsync(anyString())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<CepDataDTO> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+
+        CepWarmupStatusDTO started = cepWarmupService.start(List.of("01001000", "02002000", "03003000", "04004000", "05005000"));
+
+        for (int i = 0; i < pending.size(); i++) {
+            inFlight.decrementAndGet();
+            pending.get(i).complete(buildCepData());
+        }
+
+        assertEquals(2, maxInFlight.get());
+        assertEquals(5, cepWarmupService.getJob(started.getId()).getLoaded());
+    }
+
+    @Test
+    @DisplayName("warmUpOnStartup: lÃª CEPs dos usuÃ¡rios e nÃ£o espera alÃ©m do orÃ§amento")
+    void warmUpOnStartup_respectsBudget() {
+        when(userRepository.findDistinctCeps()).thenReturn(List.of("01001000"));
+        when(cepService.validateAndFetchCepAsync("01001000")).thenReturn(new CompletableFuture<>());
+
+        long start = System.nanoTime();
+        cepWarmupService.warmUpOnStartup();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 2000);
+        List<CepWarmupStatusDTO> jobs = cepWarmupService.listJobs();
+        assertEquals(1, jobs.size());
+        assertEquals("startup", jobs.get(0).getSource());
+        assertEquals("RUNNING", jobs.get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("warmUpOnStartup: falha ao ler o banco nÃ£o impede a inicializaÃ§Ã£o")
+    void warmUpOnStartup_databaseFailureIgnored() {
+        when(userRepository.findDistinctCeps()).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(() -> cepWarmupService.warmUpOnStartup());
+        assertTrue(cepWarmupService.listJobs().isEmpty());
+    }
+
+    @Test
+    @DisplayName("getJob: aquecimento inexistente lanÃ§a ResourceNotFoundException")
+    void getJob_notFound() {
+        assertThrows(ResourceNotFoundException.class, () -> cepWarmupService.getJob("inexistente"));
+    }
+}
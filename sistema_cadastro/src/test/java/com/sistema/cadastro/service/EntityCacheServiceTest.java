@@ -0,0 +1,83 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EntityCacheServiceTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Deve descartar a regiÃ£o de resultados de consultas")
+    void deveDescartarRegiaoDeConsultas() {
+        jakarta.persistence.Cache jpaCache = mock(jakarta.persistence.Cache.class);
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.getCache()).thenReturn(jpaCache);
+        when(jpaCache.unwrap(Cache.class)).thenReturn(cache);
+
+        new EntityCacheService(entityManagerFactory).evictQueryResults();
+
+        verify(cache).evictDefaultQueryRegion();
+    }
+
+    @Test
+    @DisplayName("Deve descartar os produtos agora e de novo ao fim da transaÃ§Ã£o")
+    void deveDescartarProdutosDuasVezes() {
+        jakarta.persistence.Cache jpaCache = mock(jakarta.persistence.Cache.class);
+        when(entityManagerFactory.getCache()).thenReturn(jpaCache);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            new EntityCacheService(entityManagerFactory).evictProducts(List.of(7L, 3L));
+            verify(jpaCache).evict(Product.class, 7L);
+            verify(jpaCache).evict(Product.class, 3L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(jpaCache, times(2)).evict(Product.class, 7L);
+        verify(jpaCache, times(2)).evict(Product.class, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve calcular a taxa de acertos da regiÃ£o")
+    void deveCalcularTaxaDeAcertos() {
+        CacheRegionStatistics statistics = mock(CacheRegionStatistics.class);
+        when(statistics.getHitCount()).thenReturn(3L);
+        when(statistics.getMissCount()).thenReturn(1L);
+
+        assertEquals(0.75, EntityCacheService.hitRatio(statistics));
+    }
+
+    @Test
+    @DisplayName("Taxa de acertos sem consultas ou sem regiÃ£o deve ser NaN")
+    void taxaDeAcertosSemDados() {
+        CacheRegionStatistics statistics = mock(CacheRegionStatistics.class);
+
+        assertTrue(Double.isNaN(EntityCacheService.hitRatio(statistics)));
+        assertTrue(Double.isNaN(EntityCacheService.hitRatio(null)));
+    }
+}
@@ -0,0 +1,178 @@
+﻿package com.sistema.cadastro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sistema.cadastro.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate streamingTemplate;
+
+    @Mock
+    private TransactionTemplate readOnlyTransaction;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private ResultSetMetaData metaData;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setup() {
+        exportService = new ExportService(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), new ObjectMapper());
+        ReflectionTestUtils.setField(exportService, "streamingTemplate", streamingTemplate);
+        ReflectionTestUtils.setField(exportService, "readOnlyTransaction", readOnlyTransaction);
+    }
+
+    private void rows(Object[]... rows) throws SQLException {
+        when(readOnlyTransaction.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(4);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("name");
+        when(metaData.getColumnLabel(3)).thenReturn("price");
+        when(metaData.getColumnLabel(4)).thenReturn("created_at");
+        int[] cursor = {-1};
+        when(resultSet.next()).thenAnswer(inv -> ++cursor[0] < rows.length);
+        lenient().when(resultSet.getObject(anyInt())).thenAnswer(inv -> rows[cursor[0]][inv.<Integer>getArgument(0) - 1]);
+        doAnswer(inv -> inv.<ResultSetExtractor<?>>getArgument(2).extractData(resultSet))
+                .when(streamingTemplate).query(anyString(), anyMap(), any(ResultSetExtractor.class));
+    }
+
+    @Test
+    @DisplayName("CSV: cabeÃ§alho com nomes da API, aspas quando necessÃ¡rio e nulos vazios")
+    void exportCsv() throws Exception {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+        rows(new Object[]{1L, "Mouse, sem fio", new BigDecimal("1E+2"), createdAt},
+                new Object[]{2L, "Teclado \"mecÃ¢nico\"", null, createdAt});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.exportProducts(null, null, null, null, null, null, null, null, null,
+                ExportService.Format.CSV, false, output);
+
+        assertEquals(2, exported);
+        assertEquals("id,name,price,createdAt\n"
+                        + "1,\"Mouse, sem fio\",100,2024-03-01T10:15:30\n"
+                        + "2,\"Teclado \"\"mecÃ¢nico\"\"\",,2024-03-01T10:15:30\n",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("NDJSON com gzip: um objeto JSON por linha, tipos preservados")
+    void exportNdjsonGzip() throws Exception {
+        rows(new Object[]{7L, "Ana", new BigDecimal("10.50"), null});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.exportUsers(null, null, null, "Campinas", null, ExportService.Format.NDJSON, true, output);
+
+        String body;
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(body.endsWith("\n"));
+        JsonNode row = new ObjectMapper().readTree(body.trim());
+        assertEquals(7, row.get("id").asLong());
+        assertEquals(10.50, row.get("price").asDouble());
+        assertTrue(row.get("createdAt").isNull());
+        verify(streamingTemplate).query(eq("SELECT * FROM users u WHERE LOWER(u.city) LIKE '%' || LOWER(:city) || '%' ORDER BY u.id"),
+                eq(Map.of("city", "Campinas")), any(ResultSetExtractor.class));
+    }
+
+    @Test
+    @DisplayName("NDJSON: cada linha comeÃ§a direto no objeto, sem separador entre valores")
+    void exportNdjsonLines() throws Exception {
+        rows(new Object[]{1L, "Ana", null, null}, new Object[]{2L, "Bruno", null, null}, new Object[]{3L, "Caio", null, null});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.exportUsers(null, null, null, null, null, ExportService.Format.NDJSON, false, output);
+
+        assertEquals(3, exported);
+        assertEquals("""
+                {"id":1,"name":"Ana","price":null,"createdAt":null}
+                {"id":2,"name":"Bruno","price":null,"createdAt":null}
+                {"id":3,"name":"Caio","price":null,"createdAt":null}
+                """, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("CSV sem linhas ainda traz o cabeÃ§alho")
+    void exportCsvEmpty() throws Exception {
+        rows();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.exportProducts(null, null, null, null, null, null, null, null, null,
+                ExportService.Format.CSV, false, output);
+
+        assertEquals(0, exported);
+        assertEquals("id,name,price,createdAt\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Falha de escrita (cliente desconectado) interrompe a leitura e propaga IOException")
+    void clientDisconnect() throws Exception {
+        // Linha maior que o buffer forÃ§a a escrita ainda durante a leitura do cursor
+        rows(new Object[]{1L, "A".repeat(100_000), null, null});
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException ex = assertThrows(IOException.class, () -> exportService.exportUsers(null, null, null, null, null,
+                ExportService.Format.CSV, false, broken));
+        assertEquals("Broken pipe", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Formato desconhecido retorna 400")
+    void invalidFormat() {
+        BusinessException ex = assertThrows(BusinessException.class, () -> ExportService.Format.parse("xlsx"));
+        assertEquals("INVALID_EXPORT_FORMAT", ex.getErrorCode());
+        assertEquals(ExportService.Format.NDJSON, ExportService.Format.parse("ndjson"));
+    }
+}
@@ -1,10 +1,12 @@
 ﻿package com.sistema.cadastro.service;
 
+import com.sistema.cadastro.dto.CursorPageDTO;
 import com.sistema.cadastro.dto.ProductDTO;
 import com.sistema.cadastro.entity.Product;
 import com.sistema.cadastro.exception.BusinessException;
 import com.sistema.cadastro.exception.ResourceNotFoundException;
 import com.sistema.cadastro.repository.ProductRepository;
+import com.sistema.cadastro.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,12 +17,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -34,6 +38,9 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -97,6 +104,31 @@ class ProductServiceTest {
         verify(productRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("createProduct: SKU ausente no filtro de Bloom dispensa a consulta ao banco")
+    void createProduct_bloomFilterSkipsExistsQuery() {
+        when(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.SKU, "ABC-123")).thenReturn(true);
+        when(productRepository.save(any(Product.class))).thenReturn(buildProductFromDto(validDto));
+
+        productService.createProduct(validDto);
+
+        verify(productRepository, never()).existsBySku(anyString());
+        verify(uniqueKeyFilterService).add(UniqueKeyFilterService.Key.SKU, "ABC-123");
+    }
+
+    @Test
+    @DisplayName("createProduct: SKU criado por outra instÃ¢ncia e ausente no filtro vira DUPLICATE_SKU")
+    void createProduct_uniqueConstraintAfterBloomFilter() {
+        when(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.SKU, "ABC-123")).thenReturn(true);
+        when(productRepository.save(any(Product.class))).thenThrow(new DataIntegrityViolationException("uk_products_sku"));
+        when(productRepository.existsBySku("ABC-123")).thenReturn(true);
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> productService.createProduct(validDto));
+
+        assertEquals("DUPLICATE_SKU", ex.getErrorCode());
+        verify(uniqueKeyFilterService, never()).add(any(), any());
+    }
+
     @Test
     @DisplayName("createProduct: preÃ§o invÃ¡lido lanÃ§a BusinessException")
     void createProduct_invalidPrice() {
@@ -152,6 +184,22 @@ class ProductServiceTest {
         assertEquals(1, result.getTotalElements());
     }
 
+    @Test
+    @DisplayName("getActiveProductsAfter: Ãºltima pÃ¡gina nÃ£o traz cursor e nÃ£o executa COUNT")
+    void getActiveProductsAfter_lastPage() {
+        Product p = buildProductFromDto(validDto);
+        p.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        String after = new KeysetCursor(LocalDateTime.of(2024, 1, 1, 0, 0), 1L).encode();
+        when(productRepository.findActivePageAfter(LocalDateTime.of(2024, 1, 1, 0, 0), 1L, 21)).thenReturn(List.of(p));
+
+        CursorPageDTO<Product> page = productService.getActiveProductsAfter(after, 20);
+
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        verify(productRepository, never()).count();
+    }
+
     @Test
     @DisplayName("updateProduct: sucesso com validaÃ§Ãµes")
     void updateProduct_success() {
@@ -195,11 +243,22 @@ class ProductServiceTest {
     class StockOperations {
 
         @Test
-        @DisplayName("updateProductStock: reduz alÃ©m do disponÃ­vel lanÃ§a IllegalStateException")
+        @DisplayName("updateProductStock: reduz alÃ©m do disponÃ­vel lanÃ§a IllegalStateException com o estoque atual")
         void updateProductStock_insufficient() {
-            Product existing = buildProductFromDto(validDto);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(existing));
-            assertThrows(IllegalStateException.class, () -> productService.updateProductStock(1L, 1000, false));
+            when(productRepository.adjustStock(1L, -1000)).thenReturn(Optional.empty());
+            when(productRepository.findStockById(1L)).thenReturn(Optional.of(100));
+            IllegalStateException ex = assertThrows(IllegalStateException.class,
+                    () -> productService.updateProductStock(1L, 1000, false));
+            assertEquals("Estoque insuficiente. DisponÃ­vel: 100, Solicitado: 1000", ex.getMessage());
+            verify(productRepository, never()).save(any(Product.class));
+        }
+
+        @Test
+        @DisplayName("updateProductStock: produto inexistente lanÃ§a ResourceNotFoundException")
+        void updateProductStock_notFound() {
+            when(productRepository.adjustStock(99L, -1)).thenReturn(Optional.empty());
+            when(productRepository.findStockById(99L)).thenReturn(Optional.empty());
+            assertThrows(ResourceNotFoundException.class, () -> productService.updateProductStock(99L, 1, false));
         }
 
         @Test
@@ -213,21 +272,23 @@ class ProductServiceTest {
         @Test
         @DisplayName("updateStock: positivo delega para aumento")
         void updateStock_positive() {
-            Product existing = buildProductFromDto(validDto);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(existing));
-            when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+            Product updated = buildProductFromDto(validDto);
+            updated.setStock(105);
+            when(productRepository.adjustStock(1L, 5)).thenReturn(Optional.of(updated));
             Product result = productService.updateStock(1L, 5);
             assertEquals(105, result.getStock());
+            verify(productRepository, never()).findById(anyLong());
         }
 
         @Test
         @DisplayName("updateStock: negativo delega para reduÃ§Ã£o")
         void updateStock_negative() {
-            Product existing = buildProductFromDto(validDto);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(existing));
-            when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+            Product updated = buildProductFromDto(validDto);
+            updated.setStock(90);
+            when(productRepository.adjustStock(1L, -10)).thenReturn(Optional.of(updated));
             Product result = productService.updateStock(1L, -10);
             assertEquals(90, result.getStock());
+            verify(productRepository, never()).findById(anyLong());
         }
     }
 
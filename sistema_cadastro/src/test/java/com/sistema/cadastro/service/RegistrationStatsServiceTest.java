@@ -0,0 +1,209 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.RegistrationBucketDTO;
+import com.sistema.cadastro.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationStatsServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private RegistrationStatsService registrationStatsService;
+
+    @BeforeEach
+    void setup() {
+        registrationStatsService = new RegistrationStatsService(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(registrationStatsService, "reconcileWindow", Duration.ofDays(2));
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("recordCreated: dentro de transaÃ§Ã£o sÃ³ conta depois do commit")
+    void recordCreated_afterCommit() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(), any())).thenReturn(10L);
+        LocalDateTime now = LocalDateTime.now();
+
+        TransactionSynchronizationManager.initSynchronization();
+        registrationStatsService.recordCreated(now, 3);
+        assertEquals(10L, registrationStatsService.countToday());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(13L, registrationStatsService.countToday());
+    }
+
+    @Test
+    @DisplayName("flush: falha na gravaÃ§Ã£o devolve os incrementos para a prÃ³xima tentativa")
+    @SuppressWarnings("unchecked")
+    void flush_failureKeepsDeltas() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 14, 25);
+        registrationStatsService.recordCreated(createdAt, 2);
+        registrationStatsService.recordDeleted(createdAt);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1, 1});
+
+        registrationStatsService.flush();
+        registrationStatsService.flush();
+        registrationStatsService.flush();
+
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        List<Object[]> retried = batches.getAllValues().get(1);
+        assertEquals(2, retried.size());
+        assertArrayEquals(new Object[]{"HOUR", Timestamp.valueOf(createdAt.withMinute(0)), 1L}, retried.get(0));
+        assertArrayEquals(new Object[]{"DAY", Timestamp.valueOf(createdAt.toLocalDate().atStartOfDay()), 1L}, retried.get(1));
+    }
+
+    @Test
+    @DisplayName("reconcile: flush concorrente de um bucket novo espera a recontagem terminar")
+    @SuppressWarnings("unchecked")
+    void reconcile_concurrentFlush() throws Exception {
+        LocalDateTime newBucket = LocalDateTime.now().plusHours(1);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(1);
+        Thread[] flusher = new Thread[1];
+        lenient().when(jdbcTemplate.update(eq(RegistrationStatsService.RECOUNT_SQL), any(), any(), any())).thenAnswer(inv -> {
+            if (flusher[0] == null) {
+                // Cadastro confirmado depois da recontagem comeÃ§ar, gravado por outro agendamento
+                registrationStatsService.recordCreated(newBucket, 1);
+                flusher[0] = new Thread(registrationStatsService::flush);
+                flusher[0].start();
+                while (flusher[0].getState() != Thread.State.WAITING) {
+                    Thread.sleep(1);
+                }
+                verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+            }
+            return 1;
+        });
+
+        registrationStatsService.reconcile();
+        flusher[0].join(5000);
+
+        // A recontagem por dia comeÃ§ou depois do cadastro e jÃ¡ o contou; sÃ³ o bucket de hora fica para o flush
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals("HOUR", batch.getValue().get(0)[0]);
+        assertEquals(Timestamp.valueOf(newBucket.truncatedTo(ChronoUnit.HOURS)), batch.getValue().get(0)[1]);
+        // Advisory lock na transaÃ§Ã£o da recontagem e na do flush, para instÃ¢ncias diferentes
+        verify(jdbcTemplate, times(2)).execute(startsWith("SELECT pg_advisory_xact_lock("));
+        assertTrue(RegistrationStatsService.RECOUNT_SQL.contains("ON CONFLICT (granularity, bucket_start) DO UPDATE"));
+    }
+
+    @Test
+    @DisplayName("reconcile: incrementos pendentes dentro da janela sÃ£o descartados, os anteriores sÃ£o gravados")
+    @SuppressWarnings("unchecked")
+    void reconcile_pendingDeltas() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(1);
+        LocalDateTime old = LocalDateTime.now().minusDays(10);
+        registrationStatsService.recordCreated(LocalDateTime.now(), 1);
+        registrationStatsService.recordDeleted(old);
+
+        registrationStatsService.reconcile();
+        registrationStatsService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(List.of(-1L, -1L), batch.getValue().stream().map(row -> row[2]).toList());
+        assertEquals(Timestamp.valueOf(old.truncatedTo(ChronoUnit.HOURS)), batch.getValue().get(0)[1]);
+    }
+
+    @Test
+    @DisplayName("reconcile: cadastro confirmado entre o drain e a recontagem nÃ£o Ã© contado de novo no flush")
+    @SuppressWarnings("unchecked")
+    void reconcile_commitBeforeRecount() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(1);
+        LocalDateTime now = LocalDateTime.now();
+        lenient().when(jdbcTemplate.update(startsWith("DELETE"), any(), any())).thenAnswer(inv -> {
+            if ("HOUR".equals(inv.getArgument(1))) {
+                // afterCommit de um cadastro que a recontagem de hora e a de dia vÃ£o enxergar
+                registrationStatsService.recordCreated(now, 1);
+            }
+            return 1;
+        });
+        lenient().when(jdbcTemplate.update(eq(RegistrationStatsService.RECOUNT_SQL), any(), any(), any())).thenAnswer(inv -> {
+            if ("DAY".equals(inv.getArgument(1))) {
+                // Confirmado depois das duas recontagens comeÃ§arem: nenhuma das duas o contou
+                registrationStatsService.recordCreated(now, 2);
+            }
+            return 1;
+        });
+
+        registrationStatsService.reconcile();
+        registrationStatsService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(List.of("HOUR", "DAY"), batch.getValue().stream().map(row -> row[0]).toList());
+        assertEquals(List.of(2L, 2L), batch.getValue().stream().map(row -> row[2]).toList());
+    }
+
+    @Test
+    @DisplayName("histogram: buckets sem cadastro entram com zero e incluem incrementos pendentes")
+    void histogram_zeroFilled() {
+        LocalDate day = LocalDate.of(2026, 3, 10);
+        registrationStatsService.recordCreated(day.atTime(1, 40), 2);
+
+        List<RegistrationBucketDTO> histogram = registrationStatsService.histogram(day.atTime(0, 30), day.atTime(3, 0),
+                RegistrationStatsService.Bucket.HOUR);
+
+        assertEquals(3, histogram.size());
+        assertEquals(day.atStartOfDay(), histogram.get(0).getStart());
+        assertEquals(List.of(0L, 2L, 0L), histogram.stream().map(RegistrationBucketDTO::getRegistrations).toList());
+    }
+
+    @Test
+    @DisplayName("histogram: intervalo com buckets demais Ã© rejeitado antes de consultar o banco")
+    void histogram_tooManyBuckets() {
+        LocalDateTime from = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> registrationStatsService.histogram(from, from.plusYears(1), RegistrationStatsService.Bucket.HOUR));
+        assertEquals("INVALID_RANGE", ex.getErrorCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,137 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.dto.StockReservationItemDTO;
+import com.sistema.cadastro.dto.StockReservationLineDTO;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.exception.StockShortageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityCacheService entityCacheService;
+
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setup() {
+        stockReservationService = new StockReservationService(jdbcTemplate, transactionTemplate, entityCacheService);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Deve somar itens do mesmo produto e baixar tudo num UPDATE em ordem de id")
+    void deveReservarEmLote() throws SQLException {
+        lockedRows(row(3L, "SKU-3", 10), row(7L, "SKU-7", 5));
+        updatedRows(3L, 4, 7L, 3);
+
+        List<StockReservationLineDTO> result = stockReservationService.reserve(List.of(
+                item(7L, null, 2), item(null, " sku-3 ", 4), item(3L, null, 2)));
+
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).query(eq(StockReservationService.RESERVE_SQL), params.capture(), any(RowCallbackHandler.class));
+        assertArrayEquals(new Long[]{3L, 7L}, (Long[]) params.getValue().getValue("ids"));
+        assertArrayEquals(new Integer[]{6, 2}, (Integer[]) params.getValue().getValue("quantities"));
+
+        assertEquals(3L, result.get(1).getProductId());
+        assertEquals("SKU-3", result.get(1).getSku());
+        assertEquals(3, result.get(0).getRemainingStock());
+        assertEquals(4, result.get(2).getRemainingStock());
+        verify(entityCacheService).evictProducts(List.of(7L, 3L));
+    }
+
+    @Test
+    @DisplayName("Deve listar as linhas sem estoque e nÃ£o executar o UPDATE")
+    void deveRecusarReservaSemEstoque() throws SQLException {
+        lockedRows(row(3L, "SKU-3", 10), row(7L, "SKU-7", 1));
+
+        StockShortageException ex = assertThrows(StockShortageException.class, () -> stockReservationService.reserve(List.of(
+                item(3L, null, 4), item(7L, null, 1), item(null, "SKU-7", 1))));
+
+        assertEquals(List.of(2, 3), ex.getShortages().stream().map(StockReservationLineDTO::getLine).toList());
+        assertEquals(1, ex.getShortages().get(0).getAvailableStock());
+        verify(jdbcTemplate, never()).query(eq(StockReservationService.RESERVE_SQL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+        verify(entityCacheService, never()).evictProducts(anyCollection());
+    }
+
+    @Test
+    @DisplayName("SKU inexistente deve lanÃ§ar ResourceNotFoundException")
+    void skuInexistente() throws SQLException {
+        lockedRows(row(3L, "SKU-3", 10));
+
+        assertThrows(ResourceNotFoundException.class, () -> stockReservationService.reserve(List.of(
+                item(3L, null, 1), item(null, "SKU-9", 1))));
+    }
+
+    @Test
+    @DisplayName("Item sem productId e sku, ou com os dois, deve ser recusado antes de ir ao banco")
+    void itemSemIdentificacao() {
+        assertThrows(BusinessException.class, () -> stockReservationService.reserve(List.of(item(null, " ", 1))));
+        assertThrows(BusinessException.class, () -> stockReservationService.reserve(List.of(item(1L, "SKU-1", 1))));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static StockReservationItemDTO item(Long productId, String sku, int quantity) {
+        return StockReservationItemDTO.builder().productId(productId).sku(sku).quantity(quantity).build();
+    }
+
+    private static ResultSet row(long id, String sku, int stock) throws SQLException {
+        ResultSet rs = mock(ResultSet.class, withSettings().strictness(Strictness.LENIENT));
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("sku")).thenReturn(sku);
+        when(rs.getInt("stock")).thenReturn(stock);
+        return rs;
+    }
+
+    private void lockedRows(ResultSet... rows) {
+        doAnswer(inv -> {
+            for (ResultSet rs : rows) {
+                inv.<RowCallbackHandler>getArgument(2).processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(StockReservationService.LOCK_SQL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    // Pares (id, estoque restante) devolvidos pelo RETURNING
+    private void updatedRows(long... idAndStock) {
+        doAnswer(inv -> {
+            for (int i = 0; i < idAndStock.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(idAndStock[i]);
+                when(rs.getInt(2)).thenReturn((int) idAndStock[i + 1]);
+                inv.<RowCallbackHandler>getArgument(2).processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(StockReservationService.RESERVE_SQL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,68 @@
+﻿package com.sistema.cadastro.service;
+
+import com.sistema.cadastro.util.BloomFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class UniqueKeyFilterServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @BeforeEach
+    void setup() {
+        uniqueKeyFilterService = new UniqueKeyFilterService(jdbcTemplate, transactionManager);
+        Map<UniqueKeyFilterService.Key, BloomFilter> filters = new EnumMap<>(UniqueKeyFilterService.Key.class);
+        for (UniqueKeyFilterService.Key key : UniqueKeyFilterService.Key.values()) {
+            filters.put(key, BloomFilter.create(1000, 0.01));
+        }
+        ReflectionTestUtils.setField(uniqueKeyFilterService, "filters", filters);
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("add: dentro de transaÃ§Ã£o a chave sÃ³ entra no filtro depois do commit")
+    void add_afterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        uniqueKeyFilterService.add(UniqueKeyFilterService.Key.SKU, "ABC-123");
+        assertTrue(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.SKU, "ABC-123"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertFalse(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.SKU, "ABC-123"));
+    }
+
+    @Test
+    @DisplayName("add: fora de transaÃ§Ã£o a chave entra imediatamente")
+    void add_withoutTransaction() {
+        uniqueKeyFilterService.add(UniqueKeyFilterService.Key.EMAIL, "ana@example.com");
+
+        assertFalse(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.EMAIL, "ana@example.com"));
+    }
+}
@@ -0,0 +1,254 @@
+﻿package com.sistema.cadastro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sistema.cadastro.client.CepClient;
+import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.dto.UserBulkSummaryDTO;
+import com.sistema.cadastro.entity.User;
+import com.sistema.cadastro.exception.BusinessException;
+import com.sistema.cadastro.repository.UserRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CepService cepService;
+
+    @Mock
+    private AddressEnrichmentService addressEnrichmentService;
+
+    @Mock
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @Mock
+    private RegistrationStatsService registrationStatsService;
+
+    @Mock
+    private EntityCacheService entityCacheService;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserBulkImportService userBulkImportService;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        userBulkImportService = new UserBulkImportService(userRepository, cepService, addressEnrichmentService, uniqueKeyFilterService,
+                registrationStatsService, entityCacheService, jdbcTemplate, transactionTemplate, Validation.buildDefaultValidatorFactory().getValidator(), objectMapper);
+        ReflectionTestUtils.setField(userBulkImportService, "chunkSize", 500);
+        ReflectionTestUtils.setField(userBulkImportService, "cepConcurrency", 4);
+    }
+
+    private CepDataDTO buildCepData(boolean degraded) {
+        CepDataDTO dto = new CepDataDTO();
+        dto.setLogradouro(degraded ? null : "Rua A");
+        dto.setLocalidade("SÃ£o Paulo");
+        dto.setUf("SP");
+        dto.setDegraded(degraded);
+        return dto;
+    }
+
+    private void runTransactionsInline() {
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private void generateIds() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class)))
+                .thenAnswer(inv -> {
+                    SqlParameterSource[] batch = inv.getArgument(1);
+                    KeyHolder keyHolder = inv.getArgument(2);
+                    for (int i = 0; i < batch.length; i++) {
+                        keyHolder.getKeyList().add(Map.of("id", ids.incrementAndGet()));
+                    }
+                    return new int[batch.length];
+                });
+    }
+
+    private List<JsonNode> run(String body, UserBulkImportService.Format format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        userBulkImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, output);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    @DisplayName("importUsers: NDJSON com linhas vÃ¡lidas e invÃ¡lidas gera relatÃ³rio por linha com uma consulta por lote")
+    void importUsers_ndjsonMixedRows() throws Exception {
+        UserRepository.ExistingKeys existing = mock(UserRepository.ExistingKeys.class);
+        when(existing.getCpf()).thenReturn("00000000191");
+        when(existing.getEmail()).thenReturn("ja@cadastrado.com");
+        when(userRepository.findExistingKeys(anyCollection(), anyCollection())).thenReturn(List.of(existing));
+        when(cepService.validateAndFetchCepAsync("01001000")).thenReturn(CompletableFuture.completedFuture(buildCepData(false)));
+        when(cepService.validateAndFetchCepAsync("99999999")).thenReturn(CompletableFuture.failedFuture(
+                new BusinessException("CEP nÃ£o encontrado", HttpStatus.BAD_REQUEST, CepClient.CEP_NOT_FOUND)));
+        runTransactionsInline();
+        generateIds();
+
+        String body = String.join("\n",
+                "{\"name\":\"Maria Souza\",\"email\":\"Maria@Email.com\",\"cpf\":\"12345678909\",\"cep\":\"01001000\"}",
+                "{nao e json",
+                "{\"name\":\"Jo\",\"email\":\"jo@email.com\",\"cpf\":\"52998224725\",\"cep\":\"01001000\"}",
+                "{\"name\":\"Outra Maria\",\"email\":\"outra@email.com\",\"cpf\":\"12345678909\",\"cep\":\"01001000\"}",
+                "{\"name\":\"Jose Lima\",\"email\":\"ja@cadastrado.com\",\"cpf\":\"11144477735\",\"cep\":\"01001000\"}",
+                "",
+                "{\"name\":\"Ana Costa\",\"email\":\"ana@email.com\",\"cpf\":\"52998224725\",\"cep\":\"99999999\"}",
+                "{\"name\":\"Pedro Alves\",\"email\":\"pedro@email.com\",\"cpf\":\"11111111111\",\"cep\":\"01001000\"}");
+
+        List<JsonNode> lines = run(body, UserBulkImportService.Format.NDJSON);
+
+        assertEquals(8, lines.size());
+        assertEquals("CREATED", lines.get(0).get("status").asText());
+        assertEquals(1, lines.get(0).get("line").asInt());
+        assertEquals("ENRICHED", lines.get(0).get("addressStatus").asText());
+        assertEquals("INVALID_ROW", lines.get(1).get("errorCode").asText());
+        assertEquals("VALIDATION_ERROR", lines.get(2).get("errorCode").asText());
+        assertEquals("DUPLICATE_CPF", lines.get(3).get("errorCode").asText());
+        assertEquals("DUPLICATE_EMAIL", lines.get(4).get("errorCode").asText());
+        assertEquals(7, lines.get(5).get("line").asInt());
+        assertEquals(CepClient.CEP_NOT_FOUND, lines.get(5).get("errorCode").asText());
+        assertEquals("INVALID_CPF", lines.get(6).get("errorCode").asText());
+
+        JsonNode summary = lines.get(7);
+        assertTrue(summary.get("summary").asBoolean());
+        assertEquals(7, summary.get("total").asInt());
+        assertEquals(1, summary.get("created").asInt());
+        assertEquals(6, summary.get("rejected").asInt());
+
+        verify(userRepository, times(1)).findExistingKeys(anyCollection(), anyCollection());
+        verify(cepService, times(1)).validateAndFetchCepAsync("01001000");
+        ArgumentCaptor<SqlParameterSource[]> batch = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture(), any(KeyHolder.class), any(String[].class));
+        assertEquals(1, batch.getValue().length);
+        assertEquals("maria@email.com", batch.getValue()[0].getValue("email"));
+        verifyNoInteractions(addressEnrichmentService);
+    }
+
+    @Test
+    @DisplayName("importUsers: CSV Ã© processado em lotes e endereÃ§os degradados vÃ£o para o enriquecimento")
+    void importUsers_csvInChunks() throws Exception {
+        ReflectionTestUtils.setField(userBulkImportService, "chunkSize", 2);
+        when(userRepository.findExistingKeys(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(cepService.validateAndFetchCepAsync("01001000")).thenReturn(CompletableFuture.completedFuture(buildCepData(false)));
+        when(cepService.validateAndFetchCepAsync("20040002")).thenReturn(CompletableFuture.completedFuture(buildCepData(true)));
+        runTransactionsInline();
+        generateIds();
+
+        String body = "\uFEFFnome;email;cpf;cep;numero\n" +
+                "Maria Souza;maria@email.com;12345678909;01001000;10\n" +
+                "\"Souza; Ana\";ana@email.com;52998224725;20040002;\n" +
+                "Jose Lima;jose@email.com;11144477735;01001000;5\n";
+
+        List<JsonNode> lines = run(body, UserBulkImportService.Format.CSV);
+
+        assertEquals(4, lines.size());
+        assertEquals(2, lines.get(0).get("line").asInt());
+        assertEquals("PENDING", lines.get(1).get("addressStatus").asText());
+        assertEquals(3, lines.get(3).get("created").asInt());
+
+        verify(userRepository, times(2)).findExistingKeys(anyCollection(), anyCollection());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class));
+        ArgumentCaptor<User> enqueued = ArgumentCaptor.forClass(User.class);
+        verify(addressEnrichmentService).enqueue(enqueued.capture());
+        assertEquals("Souza; Ana", enqueued.getValue().getName());
+        assertNotNull(enqueued.getValue().getId());
+    }
+
+    @Test
+    @DisplayName("importUsers: violaÃ§Ã£o de unicidade no lote refaz a gravaÃ§Ã£o linha a linha")
+    void importUsers_concurrentDuplicateFallsBackToSingleRows() throws Exception {
+        when(userRepository.findExistingKeys(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(cepService.validateAndFetchCepAsync("01001000")).thenReturn(CompletableFuture.completedFuture(buildCepData(false)));
+        runTransactionsInline();
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class)))
+                .thenAnswer(inv -> {
+                    SqlParameterSource[] batch = inv.getArgument(1);
+                    if (batch.length > 1 || "ana@email.com".equals(batch[0].getValue("email"))) {
+                        throw new DuplicateKeyException("duplicate key value violates unique constraint");
+                    }
+                    inv.<KeyHolder>getArgument(2).getKeyList().add(Map.of("id", 42L));
+                    return new int[]{1};
+                });
+
+        String body = "{\"name\":\"Maria Souza\",\"email\":\"maria@email.com\",\"cpf\":\"12345678909\",\"cep\":\"01001000\"}\n" +
+                "{\"name\":\"Ana Costa\",\"email\":\"ana@email.com\",\"cpf\":\"52998224725\",\"cep\":\"01001000\"}\n";
+
+        List<JsonNode> lines = run(body, UserBulkImportService.Format.NDJSON);
+
+        assertEquals(42L, lines.get(0).get("id").asLong());
+        assertEquals("DUPLICATE_USER", lines.get(1).get("errorCode").asText());
+        assertEquals(1, lines.get(2).get("created").asInt());
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class));
+    }
+
+    @Test
+    @DisplayName("importUsers: CSV sem colunas obrigatÃ³rias lanÃ§a BusinessException")
+    void importUsers_csvMissingHeader() {
+        ByteArrayInputStream input = new ByteArrayInputStream("nome,email\nMaria,maria@email.com\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BusinessException.class, () ->
+                userBulkImportService.importUsers(input, UserBulkImportService.Format.CSV, new ByteArrayOutputStream()));
+        verifyNoInteractions(userRepository, jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("importUsers: entrada vazia devolve apenas o resumo")
+    void importUsers_emptyInput() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        UserBulkSummaryDTO summary = userBulkImportService.importUsers(
+                new ByteArrayInputStream(new byte[0]), UserBulkImportService.Format.NDJSON, output);
+
+        assertEquals(0, summary.getTotal());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("\"summary\":true"));
+        verifyNoInteractions(userRepository, cepService, jdbcTemplate);
+    }
+}
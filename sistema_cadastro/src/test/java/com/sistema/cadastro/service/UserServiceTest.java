@@ -1,11 +1,15 @@
 ﻿package com.sistema.cadastro.service;
 
 import com.sistema.cadastro.dto.CepDataDTO;
+import com.sistema.cadastro.dto.CursorPageDTO;
 import com.sistema.cadastro.dto.UserDTO;
+import com.sistema.cadastro.entity.AddressStatus;
 import com.sistema.cadastro.entity.User;
 import com.sistema.cadastro.exception.BusinessException;
 import com.sistema.cadastro.exception.ResourceNotFoundException;
+import com.sistema.cadastro.repository.FieldSet;
 import com.sistema.cadastro.repository.UserRepository;
+import com.sistema.cadastro.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,13 +18,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +51,21 @@ class UserServiceTest {
     @Mock
     private CepService cepService;
 
+    @Mock
+    private AddressEnrichmentService addressEnrichmentService;
+
+    @Mock
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @Mock
+    private RegistrationStatsService registrationStatsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Executor registrationExecutor;
+
     @InjectMocks
     private UserService userService;
 
@@ -66,6 +98,20 @@ class UserServiceTest {
         return u;
     }
 
+    private UserRepository.UniqueKeyConflicts conflicts(boolean cpfTaken, boolean emailTaken) {
+        return new UserRepository.UniqueKeyConflicts() {
+            @Override
+            public boolean isCpfTaken() {
+                return cpfTaken;
+            }
+
+            @Override
+            public boolean isEmailTaken() {
+                return emailTaken;
+            }
+        };
+    }
+
     private CepDataDTO buildCepData() {
         CepDataDTO dto = new CepDataDTO();
         dto.setCep("12345678");
@@ -77,12 +123,21 @@ class UserServiceTest {
         return dto;
     }
 
+    private void runPersistenceInline() {
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(registrationExecutor).execute(any(Runnable.class));
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<User>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     @DisplayName("createUser: sucesso com normalizaÃ§Ã£o de email/CPF/CEP e preenchimento de endereÃ§o via CEP")
     void createUser_success() {
-        when(userRepository.existsByCpf("12345678909")).thenReturn(false);
-        when(userRepository.existsByEmail("joao.silva@email.com")).thenReturn(false);
-        when(cepService.validateAndFetchCep("12345-678")).thenReturn(buildCepData());
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(false, false));
+        when(cepService.validateAndFetchCepAsync("12345-678")).thenReturn(CompletableFuture.completedFuture(buildCepData()));
+        runPersistenceInline();
 
         when(userRepository.save(any(User.class))).thenAnswer(inv -> {
             User u = inv.getArgument(0);
@@ -90,7 +145,7 @@ class UserServiceTest {
             return u;
         });
 
-        User result = userService.createUser(validDto);
+        User result = userService.createUser(validDto).join();
 
         assertNotNull(result.getId());
         assertEquals("joao.silva@email.com", result.getEmail());
@@ -101,22 +156,138 @@ class UserServiceTest {
         assertEquals("SP", result.getState());
         assertEquals("Centro", result.getNeighborhood());
         assertEquals("Apto 10", result.getComplement());
+        assertEquals(AddressStatus.ENRICHED, result.getAddressStatus());
 
-        verify(userRepository).existsByCpf("12345678909");
-        verify(userRepository).existsByEmail("joao.silva@email.com");
-        verify(cepService).validateAndFetchCep("12345-678");
+        verify(userRepository, times(1)).findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L);
+        verify(cepService).validateAndFetchCepAsync("12345-678");
         verify(userRepository).save(any(User.class));
     }
 
+    @Test
+    @DisplayName("createUser: modo assÃ­ncrono grava usuÃ¡rio PENDING e agenda o enriquecimento sem consultar o CEP")
+    void createUser_asyncModePersistsPending() {
+        ReflectionTestUtils.setField(userService, "addressEnrichmentMode", "async");
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(false, false));
+        runPersistenceInline();
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> {
+            User u = inv.getArgument(0);
+            u.setId(1L);
+            return u;
+        });
+
+        User result = userService.createUser(validDto).join();
+
+        assertEquals(AddressStatus.PENDING, result.getAddressStatus());
+        assertEquals("12345678", result.getCep());
+        assertNull(result.getCity());
+        verify(addressEnrichmentService).enqueue(result);
+        verifyNoInteractions(cepService);
+    }
+
+    @Test
+    @DisplayName("createUser: CEP resolvido apenas por faixa grava PENDING e agenda o enriquecimento")
+    void createUser_degradedCepSchedulesEnrichment() {
+        CepDataDTO degraded = CepDataDTO.builder()
+                .cep("12345-678")
+                .localidade("SÃ£o Paulo")
+                .uf("SP")
+                .degraded(true)
+                .build();
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(false, false));
+        when(cepService.validateAndFetchCepAsync("12345-678")).thenReturn(CompletableFuture.completedFuture(degraded));
+        runPersistenceInline();
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        User result = userService.createUser(validDto).join();
+
+        assertEquals(AddressStatus.PENDING, result.getAddressStatus());
+        assertEquals("SP", result.getState());
+        verify(addressEnrichmentService).enqueue(result);
+    }
+
+    @Test
+    @DisplayName("createUser: CEP invÃ¡lido nÃ£o persiste usuÃ¡rio")
+    void createUser_invalidCep() {
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(false, false));
+        when(cepService.validateAndFetchCepAsync("12345-678")).thenReturn(
+                CompletableFuture.failedFuture(new BusinessException("CEP nÃ£o encontrado ou invÃ¡lido")));
+
+        CompletableFuture<User> result = userService.createUser(validDto);
+
+        assertTrue(result.isCompletedExceptionally());
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("createUser: CPF duplicado lanÃ§a BusinessException com cÃ³digo DUPLICATE_CPF")
     void createUser_duplicateCpf() {
-        when(userRepository.existsByCpf("12345678909")).thenReturn(true);
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(true, false));
 
         BusinessException ex = assertThrows(BusinessException.class, () -> userService.createUser(validDto));
         assertEquals("DUPLICATE_CPF", ex.getErrorCode());
         verify(userRepository, never()).save(any());
-        verify(cepService, never()).validateAndFetchCep(anyString());
+        verify(cepService, never()).validateAndFetchCepAsync(anyString());
+    }
+
+    @Test
+    @DisplayName("createUser: email duplicado Ã© detectado na mesma consulta de unicidade")
+    void createUser_duplicateEmail() {
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(false, true));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> userService.createUser(validDto));
+        assertEquals("DUPLICATE_EMAIL", ex.getErrorCode());
+        verify(userRepository, times(1)).findUniqueKeyConflicts(anyString(), anyString(), anyLong());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("createUser: CPF e email ausentes no filtro de Bloom dispensam a consulta de unicidade")
+    void createUser_bloomFilterSkipsUniquenessQuery() {
+        when(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.CPF, "12345678909")).thenReturn(true);
+        when(uniqueKeyFilterService.isDefinitelyAbsent(UniqueKeyFilterService.Key.EMAIL, "joao.silva@email.com")).thenReturn(true);
+        when(cepService.validateAndFetchCepAsync("12345-678")).thenReturn(CompletableFuture.completedFuture(buildCepData()));
+        runPersistenceInline();
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        User result = userService.createUser(validDto).join();
+
+        assertEquals("12345678909", result.getCpf());
+        verify(userRepository, never()).findUniqueKeyConflicts(anyString(), anyString(), anyLong());
+        verify(uniqueKeyFilterService).add(UniqueKeyFilterService.Key.CPF, "12345678909");
+        verify(uniqueKeyFilterService).add(UniqueKeyFilterService.Key.EMAIL, "joao.silva@email.com");
+    }
+
+    @Test
+    @DisplayName("createUser: violaÃ§Ã£o de unicidade na gravaÃ§Ã£o Ã© traduzida para DUPLICATE_CPF")
+    void createUser_uniqueViolationTranslated() {
+        when(uniqueKeyFilterService.isDefinitelyAbsent(any(), anyString())).thenReturn(true);
+        when(cepService.validateAndFetchCepAsync("12345-678")).thenReturn(CompletableFuture.completedFuture(buildCepData()));
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(registrationExecutor).execute(any(Runnable.class));
+        when(transactionTemplate.execute(any())).thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+        when(userRepository.findUniqueKeyConflicts("12345678909", "joao.silva@email.com", 0L)).thenReturn(conflicts(true, false));
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> userService.createUser(validDto).join());
+
+        BusinessException cause = assertInstanceOf(BusinessException.class, ex.getCause());
+        assertEquals("DUPLICATE_CPF", cause.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("createUser: fila de cadastros cheia recusa com 503 sem gravar na thread de quem chamou")
+    void createUser_registrationQueueFull() {
+        when(uniqueKeyFilterService.isDefinitelyAbsent(any(), anyString())).thenReturn(true);
+        when(cepService.validateAndFetchCepAsync("12345-678")).thenReturn(CompletableFuture.completedFuture(buildCepData()));
+        doThrow(new RejectedExecutionException("fila cheia")).when(registrationExecutor).execute(any(Runnable.class));
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> userService.createUser(validDto).join());
+
+        BusinessException cause = assertInstanceOf(BusinessException.class, ex.getCause());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, cause.getStatus());
+        assertEquals("REGISTRATION_OVERLOADED", cause.getErrorCode());
+        verifyNoInteractions(transactionTemplate, userRepository);
     }
 
     @Test
@@ -161,6 +332,61 @@ class UserServiceTest {
         verify(userRepository).findByFilters("joao", "email", "12345678909", "SÃ£o Paulo", "SP", pageable);
     }
 
+    @Test
+    @DisplayName("getUsersAfter: busca um registro a mais e devolve cursor do Ãºltimo entregue")
+    void getUsersAfter_nextCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 10, 8, 30, 15, 123456000);
+        User first = buildUserFromDto(validDto);
+        first.setId(7L);
+        first.setCreatedAt(createdAt);
+        User second = buildUserFromDto(validDto);
+        second.setId(8L);
+        second.setCreatedAt(createdAt);
+        when(userRepository.findPageAfter(KeysetCursor.START.getCreatedAt(), 0L, 2)).thenReturn(List.of(first, second));
+
+        CursorPageDTO<User> page = userService.getUsersAfter("", 1);
+
+        assertEquals(1, page.getSize());
+        assertTrue(page.isHasNext());
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(createdAt, next.getCreatedAt());
+        assertEquals(7L, next.getId());
+
+        when(userRepository.findPageAfter(createdAt, 7L, 2)).thenReturn(List.of(second));
+        CursorPageDTO<User> last = userService.getUsersAfter(page.getNextCursor(), 1);
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("getUsersAfter: cursor adulterado ou tamanho fora do limite retorna 400")
+    void getUsersAfter_invalidCursor() {
+        BusinessException invalidCursor = assertThrows(BusinessException.class, () -> userService.getUsersAfter("nao-e-cursor", 20));
+        assertEquals("INVALID_CURSOR", invalidCursor.getErrorCode());
+
+        BusinessException invalidSize = assertThrows(BusinessException.class, () -> userService.getUsersAfter("", 500));
+        assertEquals("INVALID_PAGE_SIZE", invalidSize.getErrorCode());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("getUserFieldsAfter: cursor usa created_at e id mesmo quando nÃ£o pedidos em fields")
+    void getUserFieldsAfter_retainsRequestedFields() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 10, 8, 30);
+        List<Map<String, Object>> rows = List.of(
+                new LinkedHashMap<>(Map.of("name", "Ana", "createdAt", createdAt, "id", 7L)),
+                new LinkedHashMap<>(Map.of("name", "Bruno", "createdAt", createdAt, "id", 8L)));
+        when(userRepository.findFieldsByFiltersAfter(isNull(), isNull(), isNull(), isNull(), isNull(), any(FieldSet.class),
+                eq(KeysetCursor.START.getCreatedAt()), eq(0L), eq(2))).thenReturn(rows);
+
+        CursorPageDTO<Map<String, Object>> page = userService.getUserFieldsAfter("name", "", 1);
+
+        assertEquals(List.of(Map.of("name", "Ana")), page.getContent());
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(createdAt, next.getCreatedAt());
+        assertEquals(7L, next.getId());
+    }
+
     @Test
     @DisplayName("getUserByCpf: normaliza CPF e retorna usuÃ¡rio")
     void getUserByCpf_success() {
@@ -193,9 +419,7 @@ class UserServiceTest {
         void updateUser_success_withCepChange() {
             User existing = buildUserFromDto(validDto);
             when(userRepository.findById(1L)).thenReturn(Optional.of(existing));
-            when(userRepository.findByCpfAndIdNot("12345678909", 1L)).thenReturn(Optional.empty());
-
-            when(userRepository.findByEmailAndIdNot("novo.email@email.com", 1L)).thenReturn(Optional.empty());
+            when(userRepository.findUniqueKeyConflicts("12345678909", "novo.email@email.com", 1L)).thenReturn(conflicts(false, false));
 
             when(cepService.validateAndFetchCep("87654-321")).thenReturn(
                     CepDataDTO.builder()
@@ -234,9 +458,7 @@ class UserServiceTest {
         void updateUser_duplicateEmail() {
             User existing = buildUserFromDto(validDto);
             when(userRepository.findById(1L)).thenReturn(Optional.of(existing));
-            when(userRepository.findByCpfAndIdNot("12345678909", 1L)).thenReturn(Optional.empty());
-
-            when(userRepository.findByEmailAndIdNot("email@teste.com", 1L)).thenReturn(Optional.of(new User()));
+            when(userRepository.findUniqueKeyConflicts("12345678909", "email@teste.com", 1L)).thenReturn(conflicts(false, true));
 
             UserDTO updateDto = UserDTO.builder()
                     .name("Nome")
@@ -264,11 +486,11 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("counters: createdToday/LastWeek/LastMonth delegam ao repositÃ³rio")
+    @DisplayName("counters: createdToday/LastWeek/LastMonth somam os contadores por bucket")
     void countersDelegation() {
-        when(userRepository.countUsersCreatedToday()).thenReturn(5L);
-        when(userRepository.countUsersCreatedLastWeek()).thenReturn(10L);
-        when(userRepository.countUsersCreatedLastMonth()).thenReturn(20L);
+        when(registrationStatsService.countToday()).thenReturn(5L);
+        when(registrationStatsService.countLast(Duration.ofDays(7))).thenReturn(10L);
+        when(registrationStatsService.countLast(Duration.ofDays(30))).thenReturn(20L);
 
         assertEquals(5L, userService.countUsersCreatedToday());
         assertEquals(10L, userService.countUsersCreatedLastWeek());
@@ -0,0 +1,62 @@
+﻿package com.sistema.cadastro.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("mightContain: chaves inseridas nunca dÃ£o falso negativo")
+    void noFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(String.format("%011d", i * 7919L));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(String.format("%011d", i * 7919L)));
+        }
+    }
+
+    @Test
+    @DisplayName("mightContain: taxa de falsos positivos fica prÃ³xima da configurada")
+    void falsePositiveRateNearTarget() {
+        BloomFilter filter = BloomFilter.create(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("usuario" + i + "@email.com");
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("outro" + i + "@email.com")) {
+                falsePositives++;
+            }
+        }
+
+        double observed = (double) falsePositives / probes;
+        assertTrue(observed < 0.02, "Taxa observada: " + observed);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+        assertEquals(50_000, filter.approximateElementCount(), 1_000);
+    }
+
+    @Test
+    @DisplayName("create: dimensiona bits e funÃ§Ãµes de hash pela fÃ³rmula Ã³tima")
+    void optimalSizing() {
+        BloomFilter filter = BloomFilter.create(1_000_000, 0.01);
+
+        assertEquals(7, filter.hashFunctions());
+        assertTrue(filter.bitSize() >= 9_585_059L && filter.bitSize() < 9_585_059L + 64);
+        assertEquals(filter.bitSize() / 8, filter.memoryBytes());
+        assertEquals(0.0, filter.expectedFalsePositiveRate());
+    }
+
+    @Test
+    @DisplayName("create: parÃ¢metros invÃ¡lidos lanÃ§am IllegalArgumentException")
+    void invalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 1.0));
+    }
+}
@@ -0,0 +1,22 @@
+﻿package com.sistema.cadastro.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvLinesTest {
+
+    @Test
+    @DisplayName("split: respeita aspas, aspas duplicadas e campos vazios")
+    void split() {
+        assertEquals(List.of("01001000", "PraÃ§a da SÃ©", "SÃ£o Paulo", "SP"),
+                CsvLines.split("01001000;PraÃ§a da SÃ©;SÃ£o Paulo;SP", ';'));
+        assertEquals(List.of("Ana", "Rua A, 10", "diz \"oi\""),
+                CsvLines.split("Ana,\"Rua A, 10\",\"diz \"\"oi\"\"\"", ','));
+        assertEquals(List.of("", "x", ""), CsvLines.split(",x,", ','));
+        assertEquals(List.of(""), CsvLines.split("", ','));
+    }
+}
@@ -0,0 +1,51 @@
+﻿package com.sistema.cadastro.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCodecTest {
+
+    @Test
+    @DisplayName("digits: remove pontuaÃ§Ã£o e devolve a mesma instÃ¢ncia quando jÃ¡ normalizado")
+    void digits() {
+        assertEquals("12345678909", DocumentCodec.digits("123.456.789-09"));
+        assertEquals("01001000", DocumentCodec.digits(" 01001-000 "));
+        assertEquals("", DocumentCodec.digits("abc"));
+
+        String clean = "12345678909";
+        assertSame(clean, DocumentCodec.digits(clean));
+    }
+
+    @Test
+    @DisplayName("isValidCpf: confere dÃ­gitos verificadores com ou sem pontuaÃ§Ã£o")
+    void isValidCpf() {
+        assertTrue(DocumentCodec.isValidCpf("12345678909"));
+        assertTrue(DocumentCodec.isValidCpf("529.982.247-25"));
+        assertTrue(DocumentCodec.isValidCpf("00000000191"));
+
+        assertFalse(DocumentCodec.isValidCpf("12345678900"));
+        assertFalse(DocumentCodec.isValidCpf("11111111111"));
+        assertFalse(DocumentCodec.isValidCpf("1234567890"));
+        assertFalse(DocumentCodec.isValidCpf("123456789090"));
+        assertFalse(DocumentCodec.isValidCpf(null));
+    }
+
+    @Test
+    @DisplayName("packCpf/packCep: empacotam em nÃºmero e voltam preservando zeros Ã  esquerda")
+    void packAndUnpack() {
+        long cpf = DocumentCodec.packCpf("000.000.001-91");
+        assertEquals(191L, cpf);
+        assertEquals("00000000191", DocumentCodec.unpackCpf(cpf));
+
+        int cep = DocumentCodec.packCep("01001-000");
+        assertEquals(1001000, cep);
+        assertEquals("01001000", DocumentCodec.unpackCep(cep));
+
+        assertEquals(-1, DocumentCodec.packCpf("123"));
+        assertEquals(-1, DocumentCodec.packCep("010010001"));
+        assertEquals(-1, DocumentCodec.packCep(null));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCodec.unpackCep(-1));
+    }
+}
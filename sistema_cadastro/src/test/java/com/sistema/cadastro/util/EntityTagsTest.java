@@ -0,0 +1,52 @@
+﻿package com.sistema.cadastro.util;
+
+import com.sistema.cadastro.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTagsTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2026, 3, 1, 10, 15, 30, 123_456_000);
+
+    @Test
+    @DisplayName("of: muda com a alteraÃ§Ã£o e ignora precisÃ£o abaixo de microssegundos")
+    void of() {
+        assertEquals(EntityTags.of(1L, UPDATED_AT), EntityTags.of(1L, UPDATED_AT.plusNanos(999)));
+        assertNotEquals(EntityTags.of(1L, UPDATED_AT), EntityTags.of(1L, UPDATED_AT.plusNanos(1_000)));
+        assertNotEquals(EntityTags.of(1L, UPDATED_AT), EntityTags.of(2L, UPDATED_AT));
+    }
+
+    @Test
+    @DisplayName("lastModified: sem updated_at o cabeÃ§alho fica de fora")
+    void lastModified() {
+        assertEquals(-1, EntityTags.lastModified(null));
+        assertTrue(EntityTags.lastModified(UPDATED_AT) > 0);
+    }
+
+    @Test
+    @DisplayName("ofPage: muda com alteraÃ§Ã£o de item, exclusÃ£o ou outra pÃ¡gina")
+    void ofPage() {
+        User first = User.builder().id(1L).updatedAt(UPDATED_AT).build();
+        User second = User.builder().id(2L).updatedAt(UPDATED_AT).build();
+        String tag = pageTag(List.of(first, second), 0, 2);
+
+        assertEquals(tag, pageTag(List.of(first, second), 0, 2));
+        assertNotEquals(tag, pageTag(List.of(first), 0, 1));
+        assertNotEquals(tag, pageTag(List.of(first, second), 0, 3));
+        assertNotEquals(tag, pageTag(List.of(first, second), 1, 4));
+
+        second.setUpdatedAt(UPDATED_AT.plusSeconds(1));
+        assertNotEquals(tag, pageTag(List.of(first, second), 0, 2));
+    }
+
+    private static String pageTag(List<User> users, int page, long total) {
+        return EntityTags.ofPage(new PageImpl<>(users, PageRequest.of(page, 2), total), User::getId, User::getUpdatedAt);
+    }
+}